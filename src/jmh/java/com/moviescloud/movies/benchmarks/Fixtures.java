@@ -0,0 +1,80 @@
+package com.moviescloud.movies.benchmarks;
+
+import com.moviescloud.movies.dto.MovieDto;
+import com.moviescloud.movies.entities.Country;
+import com.moviescloud.movies.entities.Genre;
+import com.moviescloud.movies.entities.Movie;
+import com.moviescloud.movies.entities.Privilege;
+import com.moviescloud.movies.entities.Type;
+import com.moviescloud.movies.entities.User;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmark data built from a fixed seed, so every run measures the same payloads.
+ */
+final class Fixtures {
+    static final String SECRET = "benchmark_secret_of_reasonable_length";
+    static final String EMAIL = "bench@movies-cloud.com";
+
+    private static final List<Genre> GENRES = Arrays.asList(new Genre(1L, "драма"), new Genre(2L, "комедия"),
+            new Genre(3L, "боевик"), new Genre(4L, "триллер"), new Genre(5L, "мультфильм"));
+    private static final List<Country> COUNTRIES = Arrays.asList(new Country(1L, "США"), new Country(2L, "Россия"),
+            new Country(3L, "Франция"), new Country(4L, "Япония"));
+    private static final List<Type> TYPES = Arrays.asList(new Type(1L, "фильм"), new Type(2L, "сериал"));
+
+    private Fixtures() {
+    }
+
+    static List<Movie> movies(int count) {
+        Random random = new Random(42);
+        List<Movie> movies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double votes = random.nextInt(500);
+            double score = votes * (1 + random.nextInt(10));
+            movies.add(dto(random, i).toEntity()
+                    .setId(i + 1)
+                    .setNumberOfVotes(votes)
+                    .setVotesScore(score)
+                    .setRating(votes == 0 ? 0 : score / votes)
+                    .setWeightedRating(votes == 0 ? 0 : (score + 25 * 6.0) / (votes + 25))
+                    .setUpdatedAt(new Date(1_600_000_000_000L + i * 60_000L)));
+        }
+        return movies;
+    }
+
+    static MovieDto dto(Random random, int i) {
+        return new MovieDto(
+                "Фильм номер " + i,
+                "Movie number " + i,
+                "https://movies-cloud.com/posters/" + i + ".jpg",
+                "https://movies-cloud.com/trailers/" + i + ".mp4",
+                "Слоган фильма " + i,
+                ("Описание фильма " + i + ". ").repeat(8),
+                1 + random.nextInt(90) / 10.0,
+                1 + random.nextInt(90) / 10.0,
+                String.valueOf(1950 + random.nextInt(74)),
+                80 + random.nextInt(100),
+                TYPES.get(random.nextInt(TYPES.size())),
+                pick(random, GENRES, 3),
+                pick(random, COUNTRIES, 2));
+    }
+
+    static User user() {
+        User user = new User(EMAIL, "{noop}password", "Bench", "Mark", new Date(0),
+                Collections.singletonList(new Privilege(1L, "ROLE_USER")));
+        user.setId(1);
+        return user;
+    }
+
+    private static <T> List<T> pick(Random random, List<T> values, int max) {
+        List<T> copy = new ArrayList<>(values);
+        Collections.shuffle(copy, random);
+        return new ArrayList<>(copy.subList(0, 1 + random.nextInt(max)));
+    }
+}
@@ -0,0 +1,83 @@
+package com.moviescloud.movies.benchmarks;
+
+import com.moviescloud.movies.congfigs.JwtRequestFilter;
+import com.moviescloud.movies.entities.User;
+import com.moviescloud.movies.repositories.UserRepository;
+import com.moviescloud.movies.services.impl.jwt.JwtTokenService;
+import com.moviescloud.movies.services.impl.jwt.JwtUserDetailsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One request through {@link JwtRequestFilter}: header parsing, token check, principal lookup and the
+ * security context. The user repository is a stub, so a principal cache miss costs no database round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class JwtRequestFilterBenchmark {
+    private static final FilterChain CHAIN = (request, response) -> { };
+
+    private JwtRequestFilter filter;
+    private MockHttpServletRequest authenticated;
+    private MockHttpServletRequest anonymous;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() throws ServletException, IOException {
+        User user = Fixtures.user();
+        UserRepository users = (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findByEmail")) return Optional.of(user).filter(u -> u.getEmail().equals(args[0]));
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        JwtUserDetailsService userDetailsService = new JwtUserDetailsService(users, 300_000, 10_000, new SimpleMeterRegistry());
+        JwtTokenService tokenService = JwtTokenServiceBenchmark.service(10_000);
+        filter = new JwtRequestFilter(tokenService, userDetailsService);
+
+        authenticated = request();
+        authenticated.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + tokenService.generateToken(user));
+        anonymous = request();
+        response = new MockHttpServletResponse();
+        authenticated();
+    }
+
+    @Benchmark
+    public Object authenticated() throws ServletException, IOException {
+        return filter(authenticated);
+    }
+
+    @Benchmark
+    public Object anonymous() throws ServletException, IOException {
+        return filter(anonymous);
+    }
+
+    private Object filter(MockHttpServletRequest request) throws ServletException, IOException {
+        try {
+            filter.doFilter(request, response, CHAIN);
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/movies");
+        request.setRemoteAddr("127.0.0.1");
+        return request;
+    }
+}
@@ -0,0 +1,56 @@
+package com.moviescloud.movies.benchmarks;
+
+import com.moviescloud.movies.entities.User;
+import com.moviescloud.movies.services.impl.jwt.JwtTokenService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signing and checking tokens. {@link #validateCached} is the path of a client reusing its token,
+ * {@link #validateUncached} the full HMAC verification done the first time a token is seen.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class JwtTokenServiceBenchmark {
+    private JwtTokenService cached;
+    private JwtTokenService uncached;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cached = service(10_000);
+        uncached = service(0);
+        user = Fixtures.user();
+        token = cached.generateToken(user);
+        cached.validateTokenAndGetEmail(token);
+    }
+
+    @Benchmark
+    public String generate() {
+        return cached.generateToken(user);
+    }
+
+    @Benchmark
+    public String validateCached() {
+        return cached.validateTokenAndGetEmail(token);
+    }
+
+    @Benchmark
+    public String validateUncached() {
+        return uncached.validateTokenAndGetEmail(token);
+    }
+
+    static JwtTokenService service(int tokenCacheSize) {
+        JwtTokenService service = new JwtTokenService(Fixtures.SECRET, tokenCacheSize, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "JWT_TOKEN_VALIDITY", 43_200_000L);
+        return service;
+    }
+}
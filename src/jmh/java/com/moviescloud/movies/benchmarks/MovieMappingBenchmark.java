@@ -0,0 +1,31 @@
+package com.moviescloud.movies.benchmarks;
+
+import com.moviescloud.movies.dto.MovieDto;
+import com.moviescloud.movies.entities.Movie;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code MovieDto.toEntity()}, the mapping behind {@code MovieController.add} and every imported row.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MovieMappingBenchmark {
+    private MovieDto dto;
+
+    @Setup
+    public void setUp() {
+        dto = Fixtures.dto(new Random(42), 1);
+    }
+
+    @Benchmark
+    public Movie toEntity() {
+        return dto.toEntity();
+    }
+}
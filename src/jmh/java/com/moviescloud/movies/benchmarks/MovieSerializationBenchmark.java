@@ -0,0 +1,40 @@
+package com.moviescloud.movies.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.moviescloud.movies.entities.Movie;
+import com.moviescloud.movies.entities.Response;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A listing page as {@code MovieController} returns it. The mapper is configured like the one Spring Boot
+ * creates, so the numbers include the annotations the entities carry.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MovieSerializationBenchmark {
+    @Param({"20", "100"})
+    int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Response<Movie> page;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        page = new Response<>(HttpStatus.OK, Fixtures.movies(pageSize), 10_000L, 10_000L / pageSize);
+    }
+
+    @Benchmark
+    public byte[] page() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,43 @@
+package com.moviescloud.movies.congfigs;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ImportExecutorConfig {
+
+    /**
+     * Runs import jobs. Both the number of workers and the queue are bounded, so a burst of uploads
+     * can neither exhaust the connection pool nor pile up unbounded work; excess submissions are rejected.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor importExecutor(@Value("${movies.import.workers}") int workers,
+                                                 @Value("${movies.import.queue-capacity}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("movie-import-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        return executor;
+    }
+
+    /**
+     * Boot's own executor, which it backs off from as soon as any other {@code Executor} bean exists. Without it
+     * Spring MVC runs every {@code StreamingResponseBody} on a new, unpooled thread. Built from
+     * {@code spring.task.execution.*} as Boot would, so streamed responses keep sharing a fixed set of workers.
+     */
+    @Lazy
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder builder) {
+        return builder.build();
+    }
+}
@@ -2,6 +2,7 @@ package com.moviescloud.movies.congfigs;
 
 import com.moviescloud.movies.services.impl.jwt.JwtTokenService;
 import com.moviescloud.movies.services.impl.jwt.JwtUserDetailsService;
+import com.moviescloud.movies.services.impl.metrics.RequestTiming;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -33,25 +34,33 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain chain) throws ServletException, IOException {
-        final String header = request.getHeader(HttpHeaders.AUTHORIZATION);
-        if (header == null || !header.startsWith("Bearer ")) {
-            chain.doFilter(request, response);
-            return;
+        final RequestTiming timing = RequestTiming.current();
+        final long mark = timing == null ? 0 : timing.enter();
+        try {
+            authenticate(request, timing);
+        } finally {
+            if (timing != null) timing.exit(RequestTiming.Phase.AUTH, mark);
         }
 
+        chain.doFilter(request, response);
+    }
+
+    private void authenticate(HttpServletRequest request, RequestTiming timing) {
+        final String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith("Bearer ")) return;
+
         final String token = header.substring(7);
         final String email = jwtTokenService.validateTokenAndGetEmail(token);
-        if (email == null) {
-            chain.doFilter(request, response);
-            return;
-        }
+        if (email == null) return;
 
-        UserDetails userDetails = jwtUserDetailsService.loadUserByEmail(email);
+        UserDetails userDetails = jwtUserDetailsService.loadCachedUserByEmail(email);
         UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
                 userDetails, "", userDetails.getAuthorities());
         authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
         SecurityContextHolder.getContext().setAuthentication(authentication);
-
-        chain.doFilter(request, response);
+        if (timing != null) {
+            timing.trust(userDetails.getAuthorities().stream()
+                    .anyMatch(authority -> RequestTiming.AUTHORITY.equals(authority.getAuthority())));
+        }
     }
 }
@@ -59,6 +59,9 @@ public class JwtSecurityConfig {
                 .authorizeHttpRequests()
                 .antMatchers("/api/v1/auth/**").permitAll()
                 .antMatchers(AUTH_WHITE_LIST).permitAll()
+                .antMatchers(HttpMethod.GET, "/api/v1/imports/**").hasAuthority("CREATE_MOVIE")
+                .antMatchers(HttpMethod.GET, "/api/v1/metrics").hasAuthority("GET_METRICS")
+                .antMatchers(HttpMethod.GET, "/api/v1/movies/export").hasAuthority("EXPORT_MOVIES")
                 .antMatchers(HttpMethod.GET).permitAll()
 
                 .antMatchers(HttpMethod.GET, URL_MOVIE_LIST).hasAuthority("GET_MOVIE")
@@ -68,6 +71,8 @@ public class JwtSecurityConfig {
 
                 .antMatchers(HttpMethod.POST, "/api/v1/{id}/votes").hasAuthority("VOTES_MOVIE")
 
+                .antMatchers(HttpMethod.POST, "/api/v1/imports").hasAuthority("CREATE_MOVIE")
+
                 .antMatchers(HttpMethod.GET, URL_STAFF_LIST).hasAuthority("GET_STAFF")
                 .antMatchers(HttpMethod.POST, URL_STAFF_LIST).hasAuthority("CREATE_STAFF")
                 .antMatchers(HttpMethod.PUT, URL_STAFF_LIST).hasAuthority("EDIT_STAFF")
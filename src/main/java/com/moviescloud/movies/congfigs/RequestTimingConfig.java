@@ -0,0 +1,45 @@
+package com.moviescloud.movies.congfigs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.moviescloud.movies.services.impl.metrics.TimedDataSource;
+import com.moviescloud.movies.services.impl.metrics.TimedJsonHttpMessageConverter;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class RequestTimingConfig {
+
+    /**
+     * Replaces the JSON converter of Spring Boot, which backs off when one is defined.
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new TimedJsonHttpMessageConverter(objectMapper);
+    }
+
+    /**
+     * Wraps the connection pool directly, ahead of any other wrapper, so every statement is timed.
+     */
+    @Bean
+    public static BeanPostProcessor timedDataSourcePostProcessor() {
+        return new TimedDataSourcePostProcessor();
+    }
+
+    private static final class TimedDataSourcePostProcessor implements BeanPostProcessor, Ordered {
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            return bean instanceof DataSource && !(bean instanceof TimedDataSource)
+                    ? new TimedDataSource((DataSource) bean) : bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
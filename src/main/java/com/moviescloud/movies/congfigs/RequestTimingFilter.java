@@ -0,0 +1,60 @@
+package com.moviescloud.movies.congfigs;
+
+import com.moviescloud.movies.services.impl.metrics.RequestTiming;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Times a request by phase, see {@link RequestTiming}, and reports it as a {@code Server-Timing} header
+ * ({@code movies.request-timing.header}, to trusted callers only) and for a sample of requests as one log line
+ * ({@code movies.request-timing.log-sample-rate}, 0 to 1). With both off, the default, no request is timed.
+ */
+@Component
+@Slf4j
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class RequestTimingFilter extends OncePerRequestFilter {
+    private final boolean header;
+    private final double logSampleRate;
+
+    public RequestTimingFilter(@Value("${movies.request-timing.header}") boolean header,
+                               @Value("${movies.request-timing.log-sample-rate}") double logSampleRate) {
+        this.header = header;
+        this.logSampleRate = logSampleRate;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        final boolean sampled = logSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < logSampleRate;
+        if (!header && !sampled) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        final RequestTiming timing = RequestTiming.start(header);
+        try {
+            chain.doFilter(request, response);
+            if (!response.isCommitted()) {
+                final String serverTiming = timing.takeServerTiming();
+                if (serverTiming != null) response.addHeader(RequestTiming.SERVER_TIMING, serverTiming);
+            }
+        } finally {
+            RequestTiming.clear();
+            if (sampled) {
+                log.info("request timing {}", timing.logLine(request.getMethod(), request.getRequestURI(), response.getStatus()));
+            }
+        }
+    }
+}
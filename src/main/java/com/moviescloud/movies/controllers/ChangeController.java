@@ -0,0 +1,57 @@
+package com.moviescloud.movies.controllers;
+
+import com.moviescloud.movies.entities.Change;
+import com.moviescloud.movies.entities.Response;
+import com.moviescloud.movies.exceptions.AppException;
+import com.moviescloud.movies.services.IChangeService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Tag(name = "Changes", description = "Лента изменений фильмов, персон и отзывов для синхронизации копий данных.")
+@RestController
+@RequestMapping("/api/v1/changes")
+@RequiredArgsConstructor
+public class ChangeController {
+
+    private final IChangeService changeService;
+
+    @Operation(summary = "Получить изменения после указанной позиции",
+            description = "Возвращает изменения в порядке их записи. Каждое изменение содержит тип и идентификатор сущности и вид операции " +
+                    "(UPSERT - создание или изменение, DELETE - удаление); актуальное состояние сущности запрашивается отдельно. " +
+                    "Следующий запрос выполняется с since=nextCursor. Отзывы удалённого фильма удаляются вместе с ним без отдельных изменений. " +
+                    "Изменения за последние несколько секунд не возвращаются, пока не завершатся транзакции, которые могли их опередить.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Запрос выполнен успешно",
+                    content = @Content(schema = @Schema(implementation = Change.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Неверные параметры запроса",
+                    content = @Content(
+                            schema = @Schema(implementation = AppException.class)
+                    )
+            )
+    })
+    @GetMapping
+    public Response<Change> getChanges(
+            @Parameter(description = "Позиция в ленте: nextCursor предыдущего ответа, 0 - с начала")
+            @RequestParam(name = "since", required = false, defaultValue = "0") long since,
+            @Parameter(description = "Максимальное количество изменений в ответе")
+            @RequestParam(name = "limit", required = false, defaultValue = "500") int limit) {
+        List<Change> changes = changeService.findAfter(since, limit);
+        long next = changes.isEmpty() ? since : changes.get(changes.size() - 1).getId();
+        return new Response<>(HttpStatus.OK, changes, String.valueOf(next));
+    }
+}
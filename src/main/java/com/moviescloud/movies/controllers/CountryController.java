@@ -3,6 +3,7 @@ package com.moviescloud.movies.controllers;
 import com.moviescloud.movies.entities.Country;
 import com.moviescloud.movies.entities.Response;
 import com.moviescloud.movies.exceptions.AppException;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
 import com.moviescloud.movies.services.ICountryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -48,7 +49,14 @@ public class CountryController {
             @Parameter(description = "Количество элементов в списке")
             @RequestParam(name = "size", required = false, defaultValue = "50") int pageSize,
             @Parameter(description = "Сортировка выводимых значений по - \"id\" (идентификатору) или \"name\" (названию жанра)")
-            @RequestParam(name = "order", required = false, defaultValue = "id") String order) {
+            @RequestParam(name = "order", required = false, defaultValue = "id") String order,
+            @Parameter(description = "Курсор постраничной навигации без OFFSET - значение nextCursor из предыдущего ответа. " +
+                    "Пустое значение (after=) начинает обход с первой страницы. В этом режиме totalElements и totalPages не вычисляются")
+            @RequestParam(name = "after", required = false) String after) {
+        if (after != null) {
+            KeysetPage<Country> slice = countryService.findAll(order, after, pageSize);
+            return new Response<>(HttpStatus.OK, slice.getItems(), slice.getNextCursor());
+        }
         Page<Country> pages = countryService.findAll(PageRequest.of(page, pageSize, Sort.by(order)));
         return new Response<>(HttpStatus.OK, pages.getContent(), pages.getTotalElements(), pages.getTotalPages());
     }
@@ -3,6 +3,7 @@ package com.moviescloud.movies.controllers;
 import com.moviescloud.movies.entities.Genre;
 import com.moviescloud.movies.entities.Response;
 import com.moviescloud.movies.exceptions.AppException;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
 import com.moviescloud.movies.services.IGenreService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -47,7 +48,14 @@ public class GenreController {
             @Parameter(description = "Количество элементов в списке")
             @RequestParam(name = "size", required = false, defaultValue = "50") int pageSize,
             @Parameter(description = "Сортировка выводимых значений по - \"id\" (идентификатору) или \"name\" (названию жанра)")
-            @RequestParam(name = "order", required = false, defaultValue = "id") String order) {
+            @RequestParam(name = "order", required = false, defaultValue = "id") String order,
+            @Parameter(description = "Курсор постраничной навигации без OFFSET - значение nextCursor из предыдущего ответа. " +
+                    "Пустое значение (after=) начинает обход с первой страницы. В этом режиме totalElements и totalPages не вычисляются")
+            @RequestParam(name = "after", required = false) String after) {
+        if (after != null) {
+            KeysetPage<Genre> slice = genreService.findAll(order, after, pageSize);
+            return new Response<>(HttpStatus.OK, slice.getItems(), slice.getNextCursor());
+        }
         Page<Genre> pages = genreService.findAll(PageRequest.of(page, pageSize, Sort.by(order)));
         return new Response<>(HttpStatus.OK, pages.getContent(), pages.getTotalElements(), pages.getTotalPages());
     }
@@ -0,0 +1,77 @@
+package com.moviescloud.movies.controllers;
+
+import com.moviescloud.movies.dto.ImportJob;
+import com.moviescloud.movies.dto.MovieDto;
+import com.moviescloud.movies.exceptions.AppException;
+import com.moviescloud.movies.services.IImportJobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+@Tag(name = "Imports", description = "Набор методов для фоновой загрузки каталога фильмов.")
+@RestController
+@RequestMapping("/api/v1/imports")
+@RequiredArgsConstructor
+public class ImportController {
+
+    private final IImportJobService importJobService;
+
+    @Operation(summary = "Запустить фоновую загрузку фильмов",
+            description = "Принимает файл с фильмами (JSON массив или NDJSON - по одному объекту на строку) и ставит его в очередь на загрузку. " +
+                    "Возвращает задачу с идентификатором, по которому можно следить за ходом загрузки.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "202",
+                    description = "Задача принята",
+                    content = @Content(schema = @Schema(implementation = ImportJob.class))
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Очередь загрузок заполнена, повторите запрос позже",
+                    content = @Content(
+                            schema = @Schema(implementation = AppException.class)
+                    )
+            )
+    })
+    @PostMapping
+    public ResponseEntity<ImportJob> submit(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "JSON массив или NDJSON объектов фильм.",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = MovieDto.class))))
+            InputStream movies) {
+        return new ResponseEntity<>(importJobService.submit(movies), HttpStatus.ACCEPTED);
+    }
+
+    @Operation(summary = "Получить состояние загрузки фильмов",
+            description = "Возвращает статус задачи, количество обработанных и отклонённых записей, скорость загрузки и ошибки.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Запрос выполнен успешно",
+                    content = @Content(schema = @Schema(implementation = ImportJob.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Задача не найдена",
+                    content = @Content(
+                            schema = @Schema(implementation = AppException.class)
+                    )
+            )
+    })
+    @GetMapping("/{id}")
+    public ImportJob getImport(
+            @Parameter(description = "идентификатор задачи загрузки")
+            @PathVariable String id) {
+        return importJobService.findById(id);
+    }
+}
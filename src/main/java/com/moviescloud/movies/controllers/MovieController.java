@@ -1,12 +1,20 @@
 package com.moviescloud.movies.controllers;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.moviescloud.movies.dto.ImportReport;
+import com.moviescloud.movies.dto.LeaderboardEntry;
 import com.moviescloud.movies.dto.MovieDto;
+import com.moviescloud.movies.dto.MovieFacets;
+import com.moviescloud.movies.dto.MovieFilter;
 import com.moviescloud.movies.entities.*;
 import com.moviescloud.movies.exceptions.AppException;
-import com.moviescloud.movies.services.ICountryService;
-import com.moviescloud.movies.services.IGenreService;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
+import com.moviescloud.movies.repositories.projections.VoterView;
+import com.moviescloud.movies.services.IMovieExportService;
+import com.moviescloud.movies.services.IMovieImportService;
 import com.moviescloud.movies.services.IMovieService;
-import com.moviescloud.movies.services.ITypeServices;
+import com.moviescloud.movies.services.IVoteService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -19,23 +27,33 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
 
 @Tag(name = "Movies", description = "Набор методов для работы с данными о фильмах.")
 @RestController
 @RequestMapping("/api/v1/movies")
 @RequiredArgsConstructor
 public class MovieController {
+    private static final String NDJSON = "application/x-ndjson";
 
     private final IMovieService movieService;
-    private final IGenreService genreService;
-    private final ITypeServices typeServices;
-    private final ICountryService countryService;
+    private final IVoteService voteService;
+    private final IMovieImportService movieImportService;
+    private final IMovieExportService movieExportService;
+    private final ObjectMapper objectMapper;
 
     @Operation(summary = "Получить список фильмов по различным фильтрам",
             description = "Возвращает список фильмов с пагинацией. Каждая страница содержит по умолчанию 10 элементов.")
@@ -49,6 +67,13 @@ public class MovieController {
                                     schema = @Schema(implementation = Movie.class)
                             )
                     }
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Жанр, страна или тип из фильтра не найдены",
+                    content = @Content(
+                            schema = @Schema(implementation = AppException.class)
+                    )
             )
     })
     @GetMapping
@@ -61,37 +86,137 @@ public class MovieController {
             @RequestParam(name = "order", required = false, defaultValue = "id") String order,
             @Parameter(description = "Поиск по ключевому слову, которое встречается в названии фильма (сериала, тв-шоу)")
             @RequestParam(name = "keyword", required = false) String keyword,
-            @Parameter(description = "Сортировка по странам (id страны). Например countries=1")
-            @RequestParam(name = "countries", required = false) Long idCountries,
-            @Parameter(description = "Сортировка по жанрам (id жанра). Например genres=1")
-            @RequestParam(name = "genres", required = false) Long idGenres,
-            @Parameter(description = "Сортировка по типам - фильм, сериал, тв-шоу, мини-сериал (id типа). Например type=1")
-            @RequestParam(name = "type", required = false) Long idType) {
-
-        Page<Movie> pages = null;
-        if (keyword != null) {
-            pages = movieService.findAllByName(PageRequest.of(page, pageSize, Sort.by(order)), keyword);
-        }
+            @Parameter(description = "Фильтр по странам (id стран). Например countries=1,2 - фильмы хотя бы одной из указанных стран")
+            @RequestParam(name = "countries", required = false) List<Long> idCountries,
+            @Parameter(description = "Фильтр по жанрам (id жанров). Например genres=1,2 - фильмы хотя бы одного из указанных жанров")
+            @RequestParam(name = "genres", required = false) List<Long> idGenres,
+            @Parameter(description = "Фильтр по типу - фильм, сериал, тв-шоу, мини-сериал (id типа). Например type=1")
+            @RequestParam(name = "type", required = false) Long idType,
+            @Parameter(description = "Фильтр по годам выпуска. Например years=2001,2002 - фильмы хотя бы одного из указанных годов")
+            @RequestParam(name = "years", required = false) List<String> years,
+            @Parameter(description = "Курсор постраничной навигации без OFFSET - значение nextCursor из предыдущего ответа. " +
+                    "Пустое значение (after=) начинает обход с первой страницы. В этом режиме totalElements и totalPages не вычисляются")
+            @RequestParam(name = "after", required = false) String after) {
 
-        if (idCountries != null) {
-            Country country = countryService.findById(idCountries);
-            pages = movieService.findAllByCountries(PageRequest.of(page, pageSize, Sort.by(order)), country);
+        MovieFilter filter = MovieFilter.builder()
+                .keyword(keyword)
+                .countries(idCountries)
+                .genres(idGenres)
+                .type(idType)
+                .years(years)
+                .build();
+        if (after != null) {
+            KeysetPage<Movie> slice = movieService.findAll(filter, order, after, pageSize);
+            return new Response<>(HttpStatus.OK, slice.getItems(), slice.getNextCursor());
         }
+        Page<Movie> pages = movieService.findAll(PageRequest.of(page, pageSize, Sort.by(order)), filter);
+        return new Response<>(HttpStatus.OK, pages.getContent(), pages.getTotalElements(), pages.getTotalPages());
+    }
 
-        if (idGenres != null) {
-            Genre genre = genreService.findById(idGenres);
-            pages = movieService.findAllByGenres(PageRequest.of(page, pageSize, Sort.by(order)), genre);
-        }
+    @Operation(summary = "Получить количество фильмов по значениям фильтров",
+            description = "Возвращает для каждого жанра, страны, типа и года количество фильмов, подходящих под переданные фильтры. " +
+                    "Количество по жанрам считается без учёта фильтра по жанрам, по странам - без фильтра по странам, по типам - " +
+                    "без фильтра по типу, по годам - без фильтра по годам, поэтому оно показывает, сколько фильмов добавит выбор другого значения.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Запрос выполнен успешно",
+                    content = @Content(schema = @Schema(implementation = MovieFacets.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Жанр, страна или тип из фильтра не найдены",
+                    content = @Content(
+                            schema = @Schema(implementation = AppException.class)
+                    )
+            )
+    })
+    @GetMapping("/facets")
+    public MovieFacets getMovieFacets(
+            @Parameter(description = "Поиск по ключевому слову, которое встречается в названии фильма (сериала, тв-шоу)")
+            @RequestParam(name = "keyword", required = false) String keyword,
+            @Parameter(description = "Фильтр по странам (id стран). Например countries=1,2 - фильмы хотя бы одной из указанных стран")
+            @RequestParam(name = "countries", required = false) List<Long> idCountries,
+            @Parameter(description = "Фильтр по жанрам (id жанров). Например genres=1,2 - фильмы хотя бы одного из указанных жанров")
+            @RequestParam(name = "genres", required = false) List<Long> idGenres,
+            @Parameter(description = "Фильтр по типу - фильм, сериал, тв-шоу, мини-сериал (id типа). Например type=1")
+            @RequestParam(name = "type", required = false) Long idType,
+            @Parameter(description = "Фильтр по годам выпуска. Например years=2001,2002 - фильмы хотя бы одного из указанных годов")
+            @RequestParam(name = "years", required = false) List<String> years) {
+        return movieService.findFacets(MovieFilter.builder()
+                .keyword(keyword)
+                .countries(idCountries)
+                .genres(idGenres)
+                .type(idType)
+                .years(years)
+                .build());
+    }
 
-        if (idType != null) {
-            Type type = typeServices.findById(idType);
-            pages = movieService.findAllByType(PageRequest.of(page, pageSize, Sort.by(order)), type);
-        }
+    @Operation(summary = "Получить список фильмов с наибольшим рейтингом",
+            description = "Возвращает фильмы в порядке убывания взвешенного рейтинга - байесовского среднего оценок пользователей, " +
+                    "в котором фильмы с малым числом голосов приближаются к среднему значению. " +
+                    "Следующая страница запрашивается по значению nextCursor из предыдущего ответа.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Запрос выполнен успешно",
+                    content = @Content(schema = @Schema(implementation = Movie.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Неверный курсор или размер страницы",
+                    content = @Content(
+                            schema = @Schema(implementation = AppException.class)
+                    )
+            )
+    })
+    @GetMapping("/top-rated")
+    public Response<Movie> getTopRatedMovies(
+            @Parameter(description = "Минимальное количество голосов, фильмы с меньшим числом голосов не выводятся")
+            @RequestParam(name = "minVotes", required = false, defaultValue = "1") int minVotes,
+            @Parameter(description = "Количество элементов в списке")
+            @RequestParam(name = "size", required = false, defaultValue = "50") int pageSize,
+            @Parameter(description = "Курсор - значение nextCursor из предыдущего ответа. Без курсора выводится первая страница")
+            @RequestParam(name = "after", required = false) String after) {
+        KeysetPage<Movie> slice = movieService.findTopRated(minVotes, after, pageSize);
+        return new Response<>(HttpStatus.OK, slice.getItems(), slice.getNextCursor());
+    }
 
-        if (pages == null) {
-            pages = movieService.findAll(PageRequest.of(page, pageSize, Sort.by(order)));
-        }
-        return new Response<>(HttpStatus.OK, pages.getContent(), pages.getTotalElements(), pages.getTotalPages());
+    @Operation(summary = "Получить лучшие фильмы жанра, страны или типа",
+            description = "Возвращает фильмы с наибольшим взвешенным рейтингом в одном жанре, стране или типе - указывается ровно один фильтр. " +
+                    "Списки хранятся в памяти и обновляются при голосовании и изменении фильмов, поэтому запрос не обращается к базе данных.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Запрос выполнен успешно",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = LeaderboardEntry.class)))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Не указан фильтр или указано несколько фильтров",
+                    content = @Content(
+                            schema = @Schema(implementation = AppException.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Списки ещё строятся после запуска приложения",
+                    content = @Content(
+                            schema = @Schema(implementation = AppException.class)
+                    )
+            )
+    })
+    @GetMapping("/top")
+    public Response<LeaderboardEntry> getTopMovies(
+            @Parameter(description = "идентификатор жанра")
+            @RequestParam(name = "genre", required = false) Long genre,
+            @Parameter(description = "идентификатор страны")
+            @RequestParam(name = "country", required = false) Long country,
+            @Parameter(description = "идентификатор типа")
+            @RequestParam(name = "type", required = false) Long type,
+            @Parameter(description = "Количество элементов в списке")
+            @RequestParam(name = "limit", required = false, defaultValue = "10") int limit) {
+        return new Response<>(HttpStatus.OK, movieService.findTop(genre, country, type, limit), null);
     }
 
     @Operation(summary = "Получить данные о фильме по его идентификатору",
@@ -136,32 +261,34 @@ public class MovieController {
             @Parameter(description = "JSON структура объекта фильм.",
                     content = @Content(schema = @Schema(implementation = MovieDto.class)))
             @RequestBody MovieDto movieDto) {
-        Movie movie = new Movie()
-                .setNameRu(movieDto.getNameRu())
-                .setNameEn(movieDto.getNameEn())
-                .setPosterUrl(movieDto.getPosterUrl())
-                .setTrailerUrl(movieDto.getTrailerUrl())
-                .setDescription(movieDto.getDescription())
-                .setSlogan(movieDto.getSlogan())
-                .setYear(movieDto.getYear())
-                .setMovieLength(movieDto.getMovieLength())
-                .setGenres(movieDto.getGenres())
-                .setCountries(movieDto.getCountries())
-                .setNumberOfVotes(0L)
-                .setVotesScore(0L)
-                .setType(movieDto.getType())
-                .setRatingImdb(movieDto.getRatingImdb())
-                .setRatingKinopoisk(movieDto.getRatingKinopoisk())
-                .setMovieLength(movieDto.getMovieLength());
-        return movieService.save(movie);
+        return movieService.save(movieDto.toEntity());
     }
 
+    @Operation(summary = "Массовая загрузка фильмов",
+            description = "Принимает JSON массив фильмов и записывает их пакетами, не загружая весь массив в память. " +
+                    "Возвращает отчёт: количество загруженных и отклонённых записей, ход загрузки по пакетам, " +
+                    "ошибки с номерами записей (с нуля) и скорость загрузки в записях в секунду. " +
+                    "Для больших каталогов используйте фоновую загрузку /api/v1/imports.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Загрузка выполнена, в том числе частично",
+                    content = @Content(schema = @Schema(implementation = ImportReport.class))
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "Тело запроса не является JSON массивом",
+                    content = @Content(
+                            schema = @Schema(implementation = AppException.class)
+                    )
+            )
+    })
     @PostMapping("/list")
-    public ResponseEntity<HttpStatus> addList(@RequestBody List<MovieDto> movieDtoList) {
-        for (MovieDto m : movieDtoList) {
-            add(m);
-        }
-        return new ResponseEntity<>(HttpStatus.OK);
+    public ImportReport addList(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "JSON массив объектов фильм.",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = MovieDto.class))))
+            InputStream movies) {
+        return movieImportService.importMovies(movies);
     }
 
     @Operation(summary = "Изменить данные о фильме",
@@ -240,10 +367,19 @@ public class MovieController {
                     description = "Неверное значение рейтинга. Рейтинг должен быть между 0 и 10",
                     content = @Content
             ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Фильм не найден",
+                    content = @Content(
+                            schema = @Schema(implementation = AppException.class)
+                    )
+            ),
             @ApiResponse(
                     responseCode = "409",
                     description = "Данный пользователь уже оценил данный ресурс.",
-                    content = @Content
+                    content = @Content(
+                            schema = @Schema(implementation = AppException.class)
+                    )
             )
     })
     @PostMapping("/{id}/votes")
@@ -251,36 +387,143 @@ public class MovieController {
                                            @RequestParam(name = "score") Integer score) {
         if (score < 0 || score > 10) return new ResponseEntity<>(HttpStatus.EXPECTATION_FAILED);
 
-        Movie movie = movieService.findById(id);
-        movie.setVotesScore(movie.getVotesScore() + score);
-        movie.setNumberOfVotes(movie.getNumberOfVotes() + 1);
-
-        List<User> users = movie.getVoteUsers();
         User user = (User) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
-        for (User u : users) {
-            if (u.getId() == user.getId()) {
-                return new ResponseEntity<>(HttpStatus.CONFLICT);
-            }
-        }
-        users.add(user);
-        movie.setVoteUsers(users);
-
-        movieService.save(movie);
+        voteService.vote(id, user.getId(), score);
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
     @Operation(summary = "Метод позволяет получить список пользователей поставивших оценку фильму",
-            description = "Возвращает список пользователей оценивших по 10-ти бальной системы фильм")
+            description = "Возвращает список пользователей оценивших по 10-ти бальной системы фильм с пагинацией, в порядке голосования.")
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
                     description = "Запрос выполнен успешно",
-                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = User.class)))
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = VoterView.class)))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Фильм не найден",
+                    content = @Content(
+                            schema = @Schema(implementation = AppException.class)
+                    )
             )
     })
     @GetMapping("/{id}/votes")
-    public Iterable<User> getVoteUsersByMovieId(@PathVariable Long id) {
-        Movie movie = movieService.findById(id);
-        return movie.getVoteUsers();
+    public Response<VoterView> getVoteUsersByMovieId(
+            @Parameter(description = "идентификатор фильма")
+            @PathVariable Long id,
+            @Parameter(description = "Номер страницы")
+            @RequestParam(name = "page", required = false, defaultValue = "0") int page,
+            @Parameter(description = "Количество элементов в списке")
+            @RequestParam(name = "size", required = false, defaultValue = "50") int pageSize,
+            @Parameter(description = "Курсор постраничной навигации без OFFSET - значение nextCursor из предыдущего ответа. " +
+                    "Пустое значение (after=) начинает обход с первой страницы. В этом режиме totalElements и totalPages не вычисляются")
+            @RequestParam(name = "after", required = false) String after) {
+        if (after != null) {
+            KeysetPage<VoterView> slice = voteService.findVoters(id, after, pageSize);
+            return new Response<>(HttpStatus.OK, slice.getItems(), slice.getNextCursor());
+        }
+        Page<VoterView> pages = voteService.findVoters(id, PageRequest.of(page, pageSize));
+        return new Response<>(HttpStatus.OK, pages.getContent(), pages.getTotalElements(), pages.getTotalPages());
+    }
+
+    @Operation(summary = "Метод позволяет выгрузить полный список пользователей поставивших оценку фильму",
+            description = "Возвращает пользователей в формате NDJSON - по одному JSON объекту на строку. " +
+                    "Строки отправляются по мере чтения из базы данных, поэтому список любого размера не собирается в памяти целиком.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Запрос выполнен успешно",
+                    content = @Content(mediaType = NDJSON, schema = @Schema(implementation = VoterView.class))
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Фильм не найден",
+                    content = @Content(
+                            schema = @Schema(implementation = AppException.class)
+                    )
+            )
+    })
+    @GetMapping(value = "/{id}/votes/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamVoteUsersByMovieId(
+            @Parameter(description = "идентификатор фильма")
+            @PathVariable Long id) {
+        voteService.requireMovie(id);
+        StreamingResponseBody body = out -> {
+            try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+                voteService.forEachVoter(id, voter -> {
+                    try {
+                        writer.write(voter);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    @Operation(summary = "Метод позволяет выгрузить полный каталог фильмов",
+            description = "Возвращает все фильмы в формате NDJSON - по одному JSON объекту на строку, жанры, страны и тип " +
+                    "включены в каждый объект. Фильмы читаются из базы данных курсором и отправляются по мере чтения. " +
+                    "Если клиент принимает Accept-Encoding: gzip, ответ сжимается. Требуется право EXPORT_MOVIES; " +
+                    "одновременно выполняется не больше movies.export.max-concurrent выгрузок.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Запрос выполнен успешно",
+                    content = @Content(mediaType = NDJSON, schema = @Schema(implementation = Movie.class))
+            ),
+            @ApiResponse(
+                    responseCode = "503",
+                    description = "Все слоты выгрузки заняты, повторите запрос позже",
+                    content = @Content
+            )
+    })
+    @GetMapping(value = "/export", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportMovies(
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        movieExportService.reserve();
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                try (GZIPOutputStream compressed = new GZIPOutputStream(out, 64 * 1024)) {
+                    movieExportService.export(compressed);
+                }
+            } else {
+                movieExportService.export(out);
+            }
+        };
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        return response.body(body);
+    }
+
+    /**
+     * Whether {@code Accept-Encoding} allows gzip: listed, or covered by {@code *}, with a non-zero q-value.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        Double any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        q = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) return q > 0;
+            if (name.equals("*")) any = q;
+        }
+        return any != null && any > 0;
     }
 }
@@ -4,6 +4,7 @@ import com.moviescloud.movies.entities.Movie;
 import com.moviescloud.movies.entities.Person;
 import com.moviescloud.movies.entities.Response;
 import com.moviescloud.movies.exceptions.AppException;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
 import com.moviescloud.movies.services.IMovieService;
 import com.moviescloud.movies.services.IPersonService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -56,7 +57,14 @@ public class PersonController {
             @Parameter(description = "Количество элементов в списке")
             @RequestParam(name = "size", required = false, defaultValue = "50") int pageSize,
             @Parameter(description = "Сортировка выводимых значений по полю")
-            @RequestParam(name = "order", required = false, defaultValue = "id") String order) {
+            @RequestParam(name = "order", required = false, defaultValue = "id") String order,
+            @Parameter(description = "Курсор постраничной навигации без OFFSET - значение nextCursor из предыдущего ответа. " +
+                    "Пустое значение (after=) начинает обход с первой страницы. В этом режиме totalElements и totalPages не вычисляются")
+            @RequestParam(name = "after", required = false) String after) {
+        if (after != null) {
+            KeysetPage<Person> slice = personService.findAll(order, after, pageSize);
+            return new Response<>(HttpStatus.OK, slice.getItems(), slice.getNextCursor());
+        }
         Page<Person> pages = personService.findAll(PageRequest.of(page, pageSize, Sort.by(order)));
         return new Response<>(HttpStatus.OK, pages.getContent(), pages.getTotalElements(), pages.getTotalPages());
     }
@@ -1,14 +1,16 @@
 package com.moviescloud.movies.controllers;
 
 import com.moviescloud.movies.dto.ReviewDto;
-import com.moviescloud.movies.entities.Movie;
+import com.moviescloud.movies.dto.ReviewSummary;
 import com.moviescloud.movies.entities.Response;
 import com.moviescloud.movies.entities.Review;
 import com.moviescloud.movies.entities.User;
-import com.moviescloud.movies.services.IMovieService;
+import com.moviescloud.movies.exceptions.AppException;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
 import com.moviescloud.movies.services.IReviewService;
 import com.moviescloud.movies.services.IUserService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -16,13 +18,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Date;
-import java.util.List;
 
 @Tag(name = "Reviews", description = "Набор методов для работы с отзывами для фильмов.")
 @RestController
@@ -31,11 +34,10 @@ import java.util.List;
 public class ReviewController {
 
     private final IReviewService reviewService;
-    private final IMovieService movieService;
     private final IUserService userService;
 
     @Operation(summary = "Получить список рецензий (комментариев) к фильму по его идентификатору",
-            description = "Возвращает список рецензий.")
+            description = "Возвращает список рецензий с пагинацией, сначала новые.")
     @ApiResponses(value = {
             @ApiResponse(
                     responseCode = "200",
@@ -46,12 +48,72 @@ public class ReviewController {
                                     array = @ArraySchema(schema = @Schema(implementation = Review.class))
                             )
                     }
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Фильм не найден",
+                    content = @Content(
+                            schema = @Schema(implementation = AppException.class)
+                    )
             )
     })
     @GetMapping("/{id}/reviews")
-    public Response<Review> getAllReviewByMovieId(@PathVariable Long id) {
-        List<Review> reviews = movieService.findById(id).getReviews();
-        return new Response<>(HttpStatus.OK, reviews, reviews.size(), 1);
+    public Response<Review> getAllReviewByMovieId(
+            @Parameter(description = "идентификатор фильма")
+            @PathVariable Long id,
+            @Parameter(description = "Номер страницы")
+            @RequestParam(name = "page", required = false, defaultValue = "0") int page,
+            @Parameter(description = "Количество элементов в списке")
+            @RequestParam(name = "size", required = false, defaultValue = "50") int pageSize,
+            @Parameter(description = "Курсор постраничной навигации без OFFSET - значение nextCursor из предыдущего ответа. " +
+                    "Пустое значение (after=) начинает обход с первой страницы. В этом режиме totalElements и totalPages не вычисляются")
+            @RequestParam(name = "after", required = false) String after) {
+        if (after != null) {
+            KeysetPage<Review> slice = reviewService.findAllByMovieId(id, after, pageSize);
+            return new Response<>(HttpStatus.OK, slice.getItems(), slice.getNextCursor());
+        }
+        Page<Review> pages = reviewService.findAllByMovieId(id, PageRequest.of(page, pageSize));
+        return new Response<>(HttpStatus.OK, pages.getContent(), pages.getTotalElements(), pages.getTotalPages());
+    }
+
+    @Operation(summary = "Получить краткий список рецензий (комментариев) к фильму по его идентификатору",
+            description = "Возвращает заголовки рецензий без текста с пагинацией, сначала новые.")
+    @ApiResponses(value = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Запрос выполнен успешно",
+                    content = {
+                            @Content(
+                                    mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = ReviewSummary.class))
+                            )
+                    }
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Фильм не найден",
+                    content = @Content(
+                            schema = @Schema(implementation = AppException.class)
+                    )
+            )
+    })
+    @GetMapping("/{id}/reviews/summary")
+    public Response<ReviewSummary> getReviewSummariesByMovieId(
+            @Parameter(description = "идентификатор фильма")
+            @PathVariable Long id,
+            @Parameter(description = "Номер страницы")
+            @RequestParam(name = "page", required = false, defaultValue = "0") int page,
+            @Parameter(description = "Количество элементов в списке")
+            @RequestParam(name = "size", required = false, defaultValue = "50") int pageSize,
+            @Parameter(description = "Курсор постраничной навигации без OFFSET - значение nextCursor из предыдущего ответа. " +
+                    "Пустое значение (after=) начинает обход с первой страницы. В этом режиме totalElements и totalPages не вычисляются")
+            @RequestParam(name = "after", required = false) String after) {
+        if (after != null) {
+            KeysetPage<ReviewSummary> slice = reviewService.findSummariesByMovieId(id, after, pageSize);
+            return new Response<>(HttpStatus.OK, slice.getItems(), slice.getNextCursor());
+        }
+        Page<ReviewSummary> pages = reviewService.findSummariesByMovieId(id, PageRequest.of(page, pageSize));
+        return new Response<>(HttpStatus.OK, pages.getContent(), pages.getTotalElements(), pages.getTotalPages());
     }
 
     @Operation(summary = "Получить информацию об авторе рецензии (комментария) к фильму по идентификатору рецензии",
@@ -91,20 +153,12 @@ public class ReviewController {
     public Review addReviewToMovie(
             @PathVariable Long id,
             @RequestBody ReviewDto reviewDto) {
-        Movie movie = movieService.findById(id);
-
         Review review = new Review();
         review.setAuthor((User) SecurityContextHolder.getContext().getAuthentication().getPrincipal());
         review.setTitle(reviewDto.getTitle());
         review.setDescription(reviewDto.getDescription());
         review.setCreatedAt(new Date());
-
-        List<Review> reviews = movie.getReviews();
-        reviews.add(review);
-
-        movie.setReviews(reviews);
-        movieService.save(movie);
-        return review;
+        return reviewService.add(id, review);
     }
 
     @Operation(summary = "Удалить рецензию у фильма.",
@@ -119,19 +173,18 @@ public class ReviewController {
                                     schema = @Schema(implementation = Review.class)
                             )
                     }
+            ),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "Рецензия не найдена у данного фильма",
+                    content = @Content(
+                            schema = @Schema(implementation = AppException.class)
+                    )
             )
     })
     @DeleteMapping("/{id}/reviews")
     public ResponseEntity<HttpStatus> deleteReview(@PathVariable long id, @RequestBody Review review) {
-        Movie movie = movieService.findById(id);
-        for (Review r : movie.getReviews()) {
-            if (r.getId() == review.getId()) {
-                review = r;
-            }
-        }
-        movie.getReviews().remove(review);
-        movieService.save(movie);
-        reviewService.delete(review);
+        reviewService.delete(id, review.getId());
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
@@ -2,7 +2,10 @@ package com.moviescloud.movies.controllers.handlers;
 
 import com.moviescloud.movies.exceptions.AccessDeniedException;
 import com.moviescloud.movies.exceptions.AppException;
+import com.moviescloud.movies.exceptions.BadRequestException;
+import com.moviescloud.movies.exceptions.ConflictException;
 import com.moviescloud.movies.exceptions.ResourceNotFoundException;
+import com.moviescloud.movies.exceptions.ServiceUnavailableException;
 import com.moviescloud.movies.exceptions.UnauthorizedException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -30,4 +33,22 @@ public class GlobalExceptionHandler {
         log.error(e.getMessage(), e);
         return new ResponseEntity<>(new AppException(HttpStatus.FORBIDDEN.value(), e.getMessage()), HttpStatus.FORBIDDEN);
     }
+
+    @ExceptionHandler(BadRequestException.class)
+    public ResponseEntity<AppException> catchBadRequestException(BadRequestException e) {
+        log.error(e.getMessage(), e);
+        return new ResponseEntity<>(new AppException(HttpStatus.BAD_REQUEST.value(), e.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<AppException> catchConflictException(ConflictException e) {
+        log.error(e.getMessage(), e);
+        return new ResponseEntity<>(new AppException(HttpStatus.CONFLICT.value(), e.getMessage()), HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<AppException> catchServiceUnavailableException(ServiceUnavailableException e) {
+        log.error(e.getMessage(), e);
+        return new ResponseEntity<>(new AppException(HttpStatus.SERVICE_UNAVAILABLE.value(), e.getMessage()), HttpStatus.SERVICE_UNAVAILABLE);
+    }
 }
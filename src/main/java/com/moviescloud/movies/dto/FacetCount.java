@@ -0,0 +1,14 @@
+package com.moviescloud.movies.dto;
+
+import lombok.Value;
+
+/**
+ * Number of movies with one value of a facet. For the year facet the id is {@code null}
+ * and the name holds the year.
+ */
+@Value
+public class FacetCount {
+    private Long id;
+    private String name;
+    private long count;
+}
@@ -0,0 +1,46 @@
+package com.moviescloud.movies.dto;
+
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * State of an asynchronous movie import, updated by the worker after every written batch.
+ */
+@Getter
+public class ImportJob {
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    private final String id;
+    private final Date submittedAt = new Date();
+    private volatile Status status = Status.QUEUED;
+    private volatile Date startedAt;
+    private volatile Date finishedAt;
+    private volatile String message;
+    private volatile ImportReport progress;
+
+    public ImportJob(String id) {
+        this.id = id;
+    }
+
+    public void start() {
+        startedAt = new Date();
+        status = Status.RUNNING;
+    }
+
+    public void update(ImportReport progress) {
+        this.progress = progress;
+    }
+
+    public void complete(ImportReport report) {
+        progress = report;
+        finishedAt = new Date();
+        status = Status.COMPLETED;
+    }
+
+    public void fail(String message) {
+        this.message = message;
+        finishedAt = new Date();
+        status = Status.FAILED;
+    }
+}
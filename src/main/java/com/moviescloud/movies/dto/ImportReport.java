@@ -0,0 +1,35 @@
+package com.moviescloud.movies.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class ImportReport {
+    private int imported;
+    private int failed;
+    private long elapsedMillis;
+    private double rowsPerSecond;
+    private List<Batch> batches;
+    private List<RowError> errors;
+
+    public long getProcessed() {
+        return (long) imported + failed;
+    }
+
+    @Value
+    public static class Batch {
+        private int number;
+        private long firstRow;
+        private int imported;
+        private int failed;
+        private long elapsedMillis;
+        private double rowsPerSecond;
+    }
+
+    @Value
+    public static class RowError {
+        private long row;
+        private String message;
+    }
+}
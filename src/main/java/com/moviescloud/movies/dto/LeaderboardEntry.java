@@ -0,0 +1,15 @@
+package com.moviescloud.movies.dto;
+
+import lombok.Value;
+
+@Value
+public class LeaderboardEntry {
+    private long id;
+    private String nameRu;
+    private String nameEn;
+    private String posterUrl;
+    private String year;
+    private double rating;
+    private double weightedRating;
+    private double numberOfVotes;
+}
@@ -2,6 +2,7 @@ package com.moviescloud.movies.dto;
 
 import com.moviescloud.movies.entities.Country;
 import com.moviescloud.movies.entities.Genre;
+import com.moviescloud.movies.entities.Movie;
 import com.moviescloud.movies.entities.Type;
 import lombok.Value;
 import javax.persistence.Lob;
@@ -57,4 +58,23 @@ public class MovieDto {
     List<Genre> genres;
 
     List<Country> countries;
+
+    public Movie toEntity() {
+        return new Movie()
+                .setNameRu(nameRu)
+                .setNameEn(nameEn)
+                .setPosterUrl(posterUrl)
+                .setTrailerUrl(trailerUrl)
+                .setDescription(description)
+                .setSlogan(slogan)
+                .setYear(year)
+                .setMovieLength(movieLength)
+                .setGenres(genres)
+                .setCountries(countries)
+                .setNumberOfVotes(0L)
+                .setVotesScore(0L)
+                .setType(type)
+                .setRatingImdb(ratingImdb)
+                .setRatingKinopoisk(ratingKinopoisk);
+    }
 }
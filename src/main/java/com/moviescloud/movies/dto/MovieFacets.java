@@ -0,0 +1,13 @@
+package com.moviescloud.movies.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class MovieFacets {
+    private List<FacetCount> genres;
+    private List<FacetCount> countries;
+    private List<FacetCount> types;
+    private List<FacetCount> years;
+}
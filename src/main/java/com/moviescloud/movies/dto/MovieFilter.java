@@ -0,0 +1,20 @@
+package com.moviescloud.movies.dto;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+@Builder(toBuilder = true)
+public class MovieFilter {
+    String keyword;
+
+    List<Long> genres;
+
+    List<Long> countries;
+
+    Long type;
+
+    List<String> years;
+}
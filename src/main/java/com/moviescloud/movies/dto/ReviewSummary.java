@@ -0,0 +1,12 @@
+package com.moviescloud.movies.dto;
+
+import lombok.Value;
+
+import java.util.Date;
+
+@Value
+public class ReviewSummary {
+    private long id;
+    private String title;
+    private Date createdAt;
+}
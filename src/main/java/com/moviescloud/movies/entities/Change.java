@@ -0,0 +1,45 @@
+package com.moviescloud.movies.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.util.Date;
+
+/**
+ * Outbox row written in the same transaction as the change it describes. The id only grows,
+ * so it serves as the position of a consumer in the change feed.
+ */
+@Entity
+@Table(name = "change_log")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Change {
+    public enum EntityType { MOVIE, PERSON, REVIEW }
+
+    public enum Operation { UPSERT, DELETE }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private EntityType entityType;
+
+    @Column(nullable = false)
+    private long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Operation operation;
+
+    @Column(nullable = false)
+    private Date changedAt;
+
+    public Change(EntityType entityType, long entityId, Operation operation) {
+        this(0, entityType, entityId, operation, new Date());
+    }
+}
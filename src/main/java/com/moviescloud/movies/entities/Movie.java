@@ -1,25 +1,40 @@
 package com.moviescloud.movies.entities;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.PastOrPresent;
 import javax.validation.constraints.Size;
+import java.util.Date;
 import java.util.List;
 
 @Entity
+@NamedEntityGraph(name = Movie.LISTING_GRAPH, attributeNodes = @NamedAttributeNode("type"))
+@Table(indexes = {
+        @Index(name = "idx_movie_rating", columnList = "rating, id"),
+        @Index(name = "idx_movie_weighted_rating", columnList = "weightedRating, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Accessors(chain = true)
 public class Movie {
+    public static final String LISTING_GRAPH = "Movie.listing";
+
+    /**
+     * Ids are taken from the sequence in blocks of 50 so that inserts can be batched,
+     * see {@code db/sequences.sql} for databases created with an identity column.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "movie_id_seq")
+    @SequenceGenerator(name = "movie_id_seq", sequenceName = "movie_id_seq", allocationSize = 50)
     private long id;
 
     @NotBlank
@@ -70,28 +85,35 @@ public class Movie {
     @JsonIgnore
     @NotBlank
     @Size
+    @Column(updatable = false)
     private double votesScore;
 
     @JsonIgnore
     @NotBlank
     @Size
+    @Column(updatable = false)
     private double numberOfVotes;
 
-    @JsonIgnore
-    @OneToMany(cascade = CascadeType.ALL)
-    private List<Review> reviews;
-
-    @JsonIgnore
-    @OneToMany(cascade = CascadeType.ALL)
-    private List<User> voteUsers;
+    /**
+     * Mean score, {@code votesScore / numberOfVotes}. Kept up to date by the vote statement itself,
+     * so the listing can be sorted by it and reading it costs nothing.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(insertable = false, updatable = false, columnDefinition = "double precision default 0 not null")
+    private double rating;
+
+    /**
+     * Bayesian average of the scores, see {@code WeightedRating}; orders the top rated listing.
+     * Zero while the movie has no votes.
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(insertable = false, updatable = false, columnDefinition = "double precision default 0 not null")
+    private double weightedRating;
 
     @OneToOne
     public Type type;
 
-    @Size(max = 10)
-    public double getRating() {
-        if ((this.votesScore == 0) || (this.numberOfVotes == 0)) return 0;
-        return this.votesScore / this.numberOfVotes;
-    }
+    @UpdateTimestamp
+    private Date updatedAt;
 }
 
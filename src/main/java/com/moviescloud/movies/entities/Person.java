@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
@@ -13,10 +14,12 @@ import java.util.Date;
 import java.util.List;
 
 @Entity
+@NamedEntityGraph(name = Person.LISTING_GRAPH, attributeNodes = @NamedAttributeNode("birthPlace"))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
 public class Person {
+    public static final String LISTING_GRAPH = "Person.listing";
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -47,4 +50,7 @@ public class Person {
 
     @OneToMany
     private List<Profession> professions;
+
+    @UpdateTimestamp
+    private Date updatedAt;
 }
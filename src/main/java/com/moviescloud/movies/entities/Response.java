@@ -1,5 +1,6 @@
 package com.moviescloud.movies.entities;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -13,7 +14,20 @@ public class Response<T> {
 
     private Iterable<T> items;
 
-    private long totalElements;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalElements;
 
-    private long totalPages;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long totalPages;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;
+
+    public Response(HttpStatus httpStatus, Iterable<T> items, long totalElements, long totalPages) {
+        this(httpStatus, items, totalElements, totalPages, null);
+    }
+
+    public Response(HttpStatus httpStatus, Iterable<T> items, String nextCursor) {
+        this(httpStatus, items, null, null, nextCursor);
+    }
 }
@@ -3,7 +3,12 @@ package com.moviescloud.movies.entities;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.hibernate.annotations.UpdateTimestamp;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
@@ -13,6 +18,7 @@ import javax.validation.constraints.Size;
 import java.util.Date;
 
 @Entity
+@Table(indexes = @Index(name = "idx_review_movie_created", columnList = "movie_id, createdAt, id"))
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -30,11 +36,29 @@ public class Review {
     @Column(columnDefinition="TEXT")
     private String description;
 
+    /**
+     * Set once when the review is added; not null, so the newest first listing can walk {@code idx_review_movie_created}.
+     */
     @PastOrPresent
+    @Column(nullable = false, updatable = false)
     private Date createdAt;
 
     @JsonIgnore
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @NotNull
     private User author;
+
+    @Column(name = "movie_id", updatable = false)
+    private Long movieId;
+
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "movie_id", insertable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Movie movie;
+
+    @UpdateTimestamp
+    private Date updatedAt;
 }
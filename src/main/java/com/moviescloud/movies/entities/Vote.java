@@ -0,0 +1,71 @@
+package com.moviescloud.movies.entities;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import javax.persistence.*;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.PastOrPresent;
+import java.util.Date;
+
+/**
+ * One user's score for one movie. The unique (movie, user) key doubles as the index for
+ * "has this user voted" and for listing the voters of a movie; the index on user alone
+ * serves the cascade when a user is deleted.
+ * Votes migrated from the former {@code movie_vote_users} table carry no individual score.
+ */
+@Entity
+@Table(name = "vote",
+        uniqueConstraints = @UniqueConstraint(name = "uk_vote_movie_user", columnNames = {"movie_id", "user_id"}),
+        indexes = @Index(name = "idx_vote_user", columnList = "user_id"))
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Vote {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(name = "movie_id", nullable = false)
+    private long movieId;
+
+    @Column(name = "user_id", nullable = false)
+    private long userId;
+
+    @Min(0)
+    @Max(10)
+    private Integer score;
+
+    @PastOrPresent
+    private Date createdAt;
+
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "movie_id", insertable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Movie movie;
+
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", insertable = false, updatable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private User user;
+
+    public Vote(long movieId, long userId, Integer score, Date createdAt) {
+        this.movieId = movieId;
+        this.userId = userId;
+        this.score = score;
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,7 @@
+package com.moviescloud.movies.exceptions;
+
+public class BadRequestException extends RuntimeException {
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
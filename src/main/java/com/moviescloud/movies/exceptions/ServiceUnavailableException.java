@@ -0,0 +1,7 @@
+package com.moviescloud.movies.exceptions;
+
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message);
+    }
+}
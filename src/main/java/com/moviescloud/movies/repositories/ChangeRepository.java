@@ -0,0 +1,36 @@
+package com.moviescloud.movies.repositories;
+
+import com.moviescloud.movies.entities.Change;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface ChangeRepository extends CrudRepository<Change, Long> {
+
+    @Query("select c from Change c where c.id > :since and c.changedAt < :settled order by c.id")
+    List<Change> findAfter(@Param("since") long since, @Param("settled") Date settled, Pageable pageable);
+
+    /**
+     * Records an upsert of every listed movie with a single statement.
+     */
+    @Modifying
+    @Query(value = "insert into change_log (entity_type, entity_id, operation, changed_at) " +
+            "select 'MOVIE', m.id, 'UPSERT', current_timestamp from movie m where m.id in (:ids)", nativeQuery = true)
+    int insertMovieUpserts(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Records a delete of every review of the movie with a single statement, before the movie delete cascades to them.
+     */
+    @Modifying
+    @Query(value = "insert into change_log (entity_type, entity_id, operation, changed_at) " +
+            "select 'REVIEW', r.id, 'DELETE', current_timestamp from review r where r.movie_id = :movieId", nativeQuery = true)
+    int insertReviewDeletes(@Param("movieId") long movieId);
+}
@@ -0,0 +1,70 @@
+package com.moviescloud.movies.repositories;
+
+import com.moviescloud.movies.dto.FacetCount;
+import com.moviescloud.movies.entities.Movie;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Counts the movies matching a specification per value of a facet, one grouped query per facet.
+ */
+@Repository
+public class MovieFacetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * @param attribute many-to-many or to-one attribute of {@link Movie} whose target has {@code id} and {@code name}
+     */
+    public List<FacetCount> countBy(String attribute, Specification<Movie> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Movie> root = query.from(Movie.class);
+        Join<Movie, ?> value = root.join(attribute);
+        Expression<Long> count = cb.count(root);
+        query.multiselect(value.get("id"), value.get("name"), count)
+                .where(where(specification, root, query, cb))
+                .groupBy(value.get("id"), value.get("name"))
+                .orderBy(cb.desc(count), cb.asc(value.get("name")));
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(row -> new FacetCount(row.get(0, Long.class), row.get(1, String.class), row.get(2, Long.class)))
+                .collect(Collectors.toList());
+    }
+
+    public List<FacetCount> countByYear(Specification<Movie> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Movie> root = query.from(Movie.class);
+        Path<String> year = root.get("year");
+        Predicate[] predicates = where(specification, root, query, cb);
+        Predicate[] withYear = new Predicate[predicates.length + 1];
+        System.arraycopy(predicates, 0, withYear, 0, predicates.length);
+        withYear[predicates.length] = cb.isNotNull(year);
+        query.multiselect(year, cb.count(root))
+                .where(withYear)
+                .groupBy(year)
+                .orderBy(cb.desc(year));
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(row -> new FacetCount(null, row.get(0, String.class), row.get(1, Long.class)))
+                .collect(Collectors.toList());
+    }
+
+    private static Predicate[] where(Specification<Movie> specification, Root<Movie> root, CriteriaQuery<?> query,
+                                     CriteriaBuilder cb) {
+        List<Predicate> predicates = new ArrayList<>(1);
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, cb);
+            if (predicate != null) predicates.add(predicate);
+        }
+        return predicates.toArray(new Predicate[0]);
+    }
+}
@@ -1,19 +1,56 @@
 package com.moviescloud.movies.repositories;
 
-import com.moviescloud.movies.entities.Country;
-import com.moviescloud.movies.entities.Genre;
 import com.moviescloud.movies.entities.Movie;
-import com.moviescloud.movies.entities.Type;
+import com.moviescloud.movies.repositories.projections.MovieTitle;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
-public interface MovieRepository extends PagingAndSortingRepository<Movie, Long> {
+public interface MovieRepository extends PagingAndSortingRepository<Movie, Long>, JpaSpecificationExecutor<Movie> {
+
+    @Override
+    @EntityGraph(Movie.LISTING_GRAPH)
+    Page<Movie> findAll(Pageable pageable);
+
+    @Override
+    @EntityGraph(Movie.LISTING_GRAPH)
+    Page<Movie> findAll(Specification<Movie> specification, Pageable pageable);
+
+    @EntityGraph(Movie.LISTING_GRAPH)
+    List<Movie> findAllByIdIn(Collection<Long> ids);
+
+    @Query("select m from Movie m left join fetch m.genres where m.id in :ids")
+    List<Movie> fetchGenres(@Param("ids") Collection<Long> ids);
+
+    @Query("select m from Movie m left join fetch m.countries where m.id in :ids")
+    List<Movie> fetchCountries(@Param("ids") Collection<Long> ids);
+
+    @Query("select m.id as id, m.nameRu as nameRu, m.nameEn as nameEn from Movie m")
+    List<MovieTitle> findAllTitles();
 
-    Page<Movie> findAllByNameRuContainingIgnoreCase(Pageable pageable, String keyword);
-    Page<Movie> findAllByType(Pageable pageable, Type type);
-    Page<Movie> findAllByGenres(Pageable pageable, Genre genre);
-    Page<Movie> findAllByCountries(Pageable pageable, Country country);
+    /**
+     * Adds one score and recomputes both ratings from the counters as they were before the update; the ratings
+     * are part of the movie, so {@code updatedAt} moves too. Parameters are cast so that the arithmetic is done
+     * in double precision on every database.
+     */
+    @Modifying
+    @Query("update Movie m set m.votesScore = m.votesScore + cast(:score as double), m.numberOfVotes = m.numberOfVotes + 1, " +
+            "m.rating = (m.votesScore + cast(:score as double)) / (m.numberOfVotes + 1), " +
+            "m.weightedRating = (m.votesScore + cast(:score as double) + cast(:minVotes as double) * cast(:prior as double)) " +
+            "/ (m.numberOfVotes + 1 + cast(:minVotes as double)), " +
+            "m.updatedAt = current_timestamp " +
+            "where m.id = :id")
+    int addVote(@Param("id") long id, @Param("score") double score,
+                @Param("minVotes") double minVotes, @Param("prior") double prior);
 }
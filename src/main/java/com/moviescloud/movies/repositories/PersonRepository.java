@@ -1,9 +1,24 @@
 package com.moviescloud.movies.repositories;
 
 import com.moviescloud.movies.entities.Person;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public interface PersonRepository extends PagingAndSortingRepository<Person, Long> {
+
+    @Override
+    @EntityGraph(Person.LISTING_GRAPH)
+    Page<Person> findAll(Pageable pageable);
+
+    @Query("select p from Person p left join fetch p.professions where p.id in :ids")
+    List<Person> fetchProfessions(@Param("ids") Collection<Long> ids);
 }
@@ -1,9 +1,25 @@
 package com.moviescloud.movies.repositories;
 
+import com.moviescloud.movies.dto.ReviewSummary;
 import com.moviescloud.movies.entities.Review;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface ReviewRepository extends PagingAndSortingRepository<Review, Long> {
+
+    Page<Review> findAllByMovieId(long movieId, Pageable pageable);
+
+    @Query(value = "select new com.moviescloud.movies.dto.ReviewSummary(r.id, r.title, r.createdAt) from Review r where r.movieId = :movieId",
+            countQuery = "select count(r) from Review r where r.movieId = :movieId")
+    Page<ReviewSummary> findSummariesByMovieId(@Param("movieId") long movieId, Pageable pageable);
+
+    @Modifying
+    @Query("delete from Review r where r.id = :id and r.movieId = :movieId")
+    int deleteByIdAndMovieId(@Param("id") long id, @Param("movieId") long movieId);
 }
@@ -0,0 +1,50 @@
+package com.moviescloud.movies.repositories;
+
+import com.moviescloud.movies.entities.Vote;
+import com.moviescloud.movies.repositories.projections.VoterView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+@Repository
+public interface VoteRepository extends PagingAndSortingRepository<Vote, Long> {
+
+    boolean existsByMovieIdAndUserId(long movieId, long userId);
+
+    /**
+     * @return 1 if the vote was stored, 0 if this user has already voted for the movie
+     */
+    @Modifying
+    @Query(value = "insert into vote (movie_id, user_id, score, created_at) " +
+            "values (:movieId, :userId, :score, current_timestamp) on conflict do nothing", nativeQuery = true)
+    int insertIfAbsent(@Param("movieId") long movieId, @Param("userId") long userId, @Param("score") int score);
+
+    /**
+     * Voters in voting order; {@code pageable} must not be sorted.
+     */
+    @Query(value = "select u.id as id, u.email as email, u.firstName as firstName, u.lastName as lastName, u.birthDay as birthDay " +
+            "from Vote v join v.user u where v.movieId = :movieId order by v.id",
+            countQuery = "select count(v) from Vote v where v.movieId = :movieId")
+    Page<VoterView> findVoters(@Param("movieId") long movieId, Pageable pageable);
+
+    @Query("select u.id as id, u.email as email, u.firstName as firstName, u.lastName as lastName, u.birthDay as birthDay " +
+            "from User u where u.id in :userIds")
+    List<VoterView> findVotersByUserIds(@Param("userIds") Collection<Long> userIds);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select u.id as id, u.email as email, u.firstName as firstName, u.lastName as lastName, u.birthDay as birthDay " +
+            "from Vote v join v.user u where v.movieId = :movieId order by v.id")
+    Stream<VoterView> streamVoters(@Param("movieId") long movieId);
+}
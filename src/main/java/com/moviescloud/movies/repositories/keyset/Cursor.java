@@ -0,0 +1,43 @@
+package com.moviescloud.movies.repositories.keyset;
+
+import com.moviescloud.movies.exceptions.BadRequestException;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque position of a keyset page: the sort property, its value in the last returned row
+ * ({@code null} if the value was null) and the id of that row as a tie-breaker.
+ */
+@Value
+public class Cursor {
+    private static final String SEPARATOR = "\n";
+    private static final String NULL_VALUE = "-";
+    private static final String VALUE_PREFIX = "v";
+
+    String order;
+
+    String value;
+
+    long id;
+
+    public String encode() {
+        String raw = order + SEPARATOR + (value == null ? NULL_VALUE : VALUE_PREFIX + value) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int first = raw.indexOf(SEPARATOR);
+            int last = raw.lastIndexOf(SEPARATOR);
+            String value = raw.substring(first + 1, last);
+            return new Cursor(raw.substring(0, first),
+                    value.equals(NULL_VALUE) ? null : value.substring(VALUE_PREFIX.length()),
+                    Long.parseLong(raw.substring(last + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new BadRequestException("Invalid cursor: " + token);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.moviescloud.movies.repositories.keyset;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class KeysetPage<T> {
+    List<T> items;
+
+    String nextCursor;
+}
@@ -0,0 +1,198 @@
+package com.moviescloud.movies.repositories.keyset;
+
+import com.moviescloud.movies.exceptions.BadRequestException;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.SingularAttribute;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Seek pagination over any entity: rows are ordered by {@code (order, id)} in the direction of the order and the
+ * next page starts strictly after the position stored in the cursor, so neither OFFSET nor a count query is needed.
+ * Null sort values come last in both directions. Ascending, that is the database default; descending, nulls
+ * are put last explicitly, and only for a nullable sort property, so a descending order on a not null column
+ * is plain {@code DESC} and can be read backwards from an ascending index.
+ */
+@Repository
+public class KeysetRepository {
+    private static final String ID = "id";
+    private static final String FETCH_GRAPH = "javax.persistence.fetchgraph";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public <T> KeysetPage<T> findAll(Class<T> type, Specification<T> specification, String order, String after, int size) {
+        return findAll(type, specification, order, after, size, null);
+    }
+
+    /**
+     * @param entityGraph name of the entity graph used as fetch graph for the page query, or {@code null}
+     */
+    public <T> KeysetPage<T> findAll(Class<T> type, Specification<T> specification, String order, String after, int size,
+                                     String entityGraph) {
+        return findAll(type, specification, Sort.Order.asc(order), after, size, entityGraph);
+    }
+
+    public <T> KeysetPage<T> findAll(Class<T> type, Specification<T> specification, Sort.Order order, String after, int size,
+                                     String entityGraph) {
+        return find(type, type, null, specification, order, after, size, entityGraph);
+    }
+
+    /**
+     * Same as {@link #findAll(Class, Specification, Sort.Order, String, int, String)}, but reads only the given
+     * attributes into {@code view} through its constructor. The view must expose the sort property and {@code id}.
+     */
+    public <T, R> KeysetPage<R> findAll(Class<T> type, Specification<T> specification, Sort.Order order, String after, int size,
+                                        Class<R> view, String... attributes) {
+        return find(type, view, attributes, specification, order, after, size, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T, R> KeysetPage<R> find(Class<T> type, Class<R> resultType, String[] attributes, Specification<T> specification,
+                                      Sort.Order order, String after, int size, String entityGraph) {
+        if (size < 1) throw new BadRequestException("Page size must not be less than one");
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<R> query = cb.createQuery(resultType);
+        Root<T> root = query.from(type);
+        String property = order.getProperty();
+        Path<Comparable<Object>> key = sortKey(root, property);
+        Path<Comparable<Object>> id = root.get(ID);
+        String position = position(order);
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(root, query, cb);
+            if (predicate != null) predicates.add(predicate);
+        }
+        if (after != null && !after.isEmpty()) {
+            Cursor cursor = Cursor.decode(after);
+            if (!cursor.getOrder().equals(position)) {
+                throw new BadRequestException("Cursor was issued for order=" + cursor.getOrder() + ", not order=" + position);
+            }
+            predicates.add(property.equals(ID) ? after(cb, order, id, parse(cursor, id)) : seek(cb, order, key, id, cursor));
+        }
+
+        List<Order> orderBy = new ArrayList<>(3);
+        if (order.isDescending() && nullable(root, property)) {
+            orderBy.add(cb.asc(cb.selectCase().when(cb.isNull(key), 1).otherwise(0)));
+        }
+        orderBy.add(order.isAscending() ? cb.asc(key) : cb.desc(key));
+        orderBy.add(order.isAscending() ? cb.asc(id) : cb.desc(id));
+        query.where(predicates.toArray(new Predicate[0])).orderBy(orderBy);
+        if (attributes == null) {
+            query.select((Selection<R>) (Selection<?>) root);
+        } else {
+            query.select(cb.construct(resultType, Arrays.stream(attributes).map(root::get).toArray(Selection[]::new)));
+        }
+        TypedQuery<R> typedQuery = entityManager.createQuery(query).setMaxResults(size + 1);
+        if (entityGraph != null) {
+            typedQuery.setHint(FETCH_GRAPH, entityManager.getEntityGraph(entityGraph));
+        }
+        List<R> rows = typedQuery.getResultList();
+
+        if (rows.size() <= size) return new KeysetPage<>(rows, null);
+        List<R> items = rows.subList(0, size);
+        return new KeysetPage<>(items, cursorAfter(items.get(size - 1), property, position));
+    }
+
+    /**
+     * Sort position stored in the cursor: the property, prefixed with a minus for descending order,
+     * so a cursor can not be replayed against the opposite direction.
+     */
+    private static String position(Sort.Order order) {
+        return order.isAscending() ? order.getProperty() : "-" + order.getProperty();
+    }
+
+    private static <T> Path<Comparable<Object>> sortKey(Root<T> root, String order) {
+        Attribute<? super T, ?> attribute;
+        try {
+            attribute = root.getModel().getAttribute(order);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unknown sort property: " + order);
+        }
+        if (attribute.getPersistentAttributeType() != Attribute.PersistentAttributeType.BASIC) {
+            throw new BadRequestException("Sort property " + order + " can not be used with a cursor");
+        }
+        return root.get(order);
+    }
+
+    private static <T> boolean nullable(Root<T> root, String property) {
+        SingularAttribute<? super T, ?> attribute = root.getModel().getSingularAttribute(property);
+        return attribute.isOptional() && !attribute.getJavaType().isPrimitive();
+    }
+
+    private static Predicate seek(CriteriaBuilder cb, Sort.Order order, Path<Comparable<Object>> key, Path<Comparable<Object>> id,
+                                  Cursor cursor) {
+        Predicate afterId = after(cb, order, id, parse(cursor, id));
+        if (cursor.getValue() == null) {
+            return cb.and(cb.isNull(key), afterId);
+        }
+        Comparable<Object> value = parse(cursor.getValue(), key.getJavaType());
+        return cb.or(
+                after(cb, order, key, value),
+                cb.and(cb.equal(key, value), afterId),
+                cb.isNull(key));
+    }
+
+    private static Predicate after(CriteriaBuilder cb, Sort.Order order, Path<Comparable<Object>> path, Comparable<Object> value) {
+        return order.isAscending() ? cb.greaterThan(path, value) : cb.lessThan(path, value);
+    }
+
+    private static Comparable<Object> parse(Cursor cursor, Path<?> id) {
+        return parse(String.valueOf(cursor.getId()), id.getJavaType());
+    }
+
+    private static String cursorAfter(Object row, String property, String position) {
+        BeanWrapper accessor = PropertyAccessorFactory.forBeanPropertyAccess(row);
+        Object value = accessor.getPropertyValue(property);
+        Object id = accessor.getPropertyValue(ID);
+        return new Cursor(position, format(value), ((Number) id).longValue()).encode();
+    }
+
+    /**
+     * Dates are written as an instant at the precision they were read with: a timestamp column keeps microseconds,
+     * and a cursor cut to milliseconds would skip the rows that share the millisecond of the last one.
+     */
+    private static String format(Object value) {
+        if (value == null) return null;
+        if (value instanceof Timestamp) return ((Timestamp) value).toInstant().toString();
+        if (value instanceof Date) return Instant.ofEpochMilli(((Date) value).getTime()).toString();
+        return value.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> parse(String value, Class<?> javaType) {
+        try {
+            if (Date.class.isAssignableFrom(javaType)) return (Comparable<Object>) (Object) parseDate(value);
+            return (Comparable<Object>) DefaultConversionService.getSharedInstance().convert(value, javaType);
+        } catch (ConversionException | DateTimeParseException | NumberFormatException e) {
+            throw new BadRequestException("Invalid cursor value: " + value);
+        }
+    }
+
+    /**
+     * Also reads the epoch milliseconds of cursors issued before dates were written as instants.
+     */
+    private static Timestamp parseDate(String value) {
+        if (!value.isEmpty() && value.chars().allMatch(Character::isDigit)) return new Timestamp(Long.parseLong(value));
+        return Timestamp.from(Instant.parse(value));
+    }
+}
@@ -0,0 +1,9 @@
+package com.moviescloud.movies.repositories.projections;
+
+public interface MovieTitle {
+    long getId();
+
+    String getNameRu();
+
+    String getNameEn();
+}
@@ -0,0 +1,15 @@
+package com.moviescloud.movies.repositories.projections;
+
+import java.util.Date;
+
+public interface VoterView {
+    long getId();
+
+    String getEmail();
+
+    String getFirstName();
+
+    String getLastName();
+
+    Date getBirthDay();
+}
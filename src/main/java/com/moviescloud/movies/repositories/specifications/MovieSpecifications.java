@@ -0,0 +1,79 @@
+package com.moviescloud.movies.repositories.specifications;
+
+import com.moviescloud.movies.dto.MovieFilter;
+import com.moviescloud.movies.entities.Movie;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.EscapeCharacter;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
+import java.util.Collection;
+
+/**
+ * Builds a single query plan for the movie listing: every filter becomes a predicate of one
+ * select (and its count query) instead of a separate repository call.
+ */
+public final class MovieSpecifications {
+
+    private MovieSpecifications() {
+    }
+
+    public static Specification<Movie> byFilter(MovieFilter filter) {
+        return Specification.where(nameContains(filter.getKeyword()))
+                .and(hasAny("genres", filter.getGenres()))
+                .and(hasAny("countries", filter.getCountries()))
+                .and(hasType(filter.getType()))
+                .and(yearIn(filter.getYears()));
+    }
+
+    /**
+     * SQL counterpart of the in-memory title index search, used when the index cannot answer.
+     */
+    public static Specification<Movie> nameContains(String keyword) {
+        if (keyword == null || keyword.isBlank()) return null;
+        String pattern = "%" + EscapeCharacter.DEFAULT.escape(TitleFolding.fold(keyword.trim())) + "%";
+        char escape = EscapeCharacter.DEFAULT.getEscapeCharacter();
+        return (root, query, cb) -> cb.or(
+                cb.like(folded(cb, root.get("nameRu")), pattern, escape),
+                cb.like(folded(cb, root.get("nameEn")), pattern, escape));
+    }
+
+    public static Specification<Movie> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> ids.isEmpty() ? cb.disjunction() : root.get("id").in(ids);
+    }
+
+    public static Specification<Movie> hasType(Long typeId) {
+        if (typeId == null) return null;
+        return (root, query, cb) -> cb.equal(root.get("type").get("id"), typeId);
+    }
+
+    public static Specification<Movie> yearIn(Collection<String> years) {
+        if (years == null || years.isEmpty()) return null;
+        return (root, query, cb) -> root.get("year").in(years);
+    }
+
+    /**
+     * {@link TitleFolding#fold(String)} in SQL.
+     */
+    private static Expression<String> folded(CriteriaBuilder cb, Expression<String> value) {
+        return cb.function("replace", String.class, cb.lower(value), cb.literal("ё"), cb.literal("е"));
+    }
+
+    /**
+     * Matches movies linked to at least one of the given ids through a many-to-many attribute.
+     * A subquery is used instead of a join so that neither the page nor the count query
+     * returns duplicated rows.
+     */
+    static Specification<Movie> hasAny(String attribute, Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) return null;
+        return (root, query, cb) -> {
+            Subquery<Long> subquery = query.subquery(Long.class);
+            Root<Movie> movie = subquery.from(Movie.class);
+            subquery.select(movie.get("id"))
+                    .where(movie.join(attribute).get("id").in(ids));
+            return root.get("id").in(subquery);
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package com.moviescloud.movies.repositories.specifications;
+
+import java.util.Locale;
+
+/**
+ * Normal form of movie titles for "title contains keyword" matching: lower case, with {@code ё} read as
+ * {@code е}. Shared by the SQL predicate and the in-memory title index, which must agree on it.
+ */
+public final class TitleFolding {
+
+    private TitleFolding() {
+    }
+
+    public static String fold(String value) {
+        return value.toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+}
@@ -0,0 +1,16 @@
+package com.moviescloud.movies.services;
+
+import com.moviescloud.movies.entities.Change;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface IChangeService {
+    void record(Change.EntityType entityType, long entityId, Change.Operation operation);
+
+    void recordMovieUpserts(Collection<Long> movieIds);
+
+    void recordReviewDeletes(long movieId);
+
+    List<Change> findAfter(long since, int limit);
+}
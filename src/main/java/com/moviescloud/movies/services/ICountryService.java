@@ -1,12 +1,15 @@
 package com.moviescloud.movies.services;
 
 import com.moviescloud.movies.entities.Country;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 public interface ICountryService {
     Page<Country> findAll(Pageable pageable);
 
+    KeysetPage<Country> findAll(String order, String after, int size);
+
     Country findById(Long id);
 
     Country save(Country country);
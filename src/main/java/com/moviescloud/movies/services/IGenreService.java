@@ -1,12 +1,15 @@
 package com.moviescloud.movies.services;
 
 import com.moviescloud.movies.entities.Genre;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 public interface IGenreService {
     Page<Genre> findAll(Pageable pageable);
 
+    KeysetPage<Genre> findAll(String order, String after, int size);
+
     Genre findById(Long id);
 
     Genre save(Genre genre);
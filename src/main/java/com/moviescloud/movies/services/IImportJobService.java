@@ -0,0 +1,11 @@
+package com.moviescloud.movies.services;
+
+import com.moviescloud.movies.dto.ImportJob;
+
+import java.io.InputStream;
+
+public interface IImportJobService {
+    ImportJob submit(InputStream json);
+
+    ImportJob findById(String id);
+}
@@ -0,0 +1,17 @@
+package com.moviescloud.movies.services;
+
+import java.io.OutputStream;
+
+public interface IMovieExportService {
+    /**
+     * Takes one of the {@code movies.export.max-concurrent} export slots, which {@link #export} frees when it ends.
+     *
+     * @throws com.moviescloud.movies.exceptions.ServiceUnavailableException if every slot is taken
+     */
+    void reserve();
+
+    /**
+     * Writes every movie as one JSON object per line, then frees the slot taken by {@link #reserve}.
+     */
+    void export(OutputStream out);
+}
@@ -0,0 +1,15 @@
+package com.moviescloud.movies.services;
+
+import com.moviescloud.movies.dto.ImportReport;
+
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+public interface IMovieImportService {
+    ImportReport importMovies(InputStream json);
+
+    /**
+     * @param progress receives the report so far after every written batch
+     */
+    ImportReport importMovies(InputStream json, Consumer<ImportReport> progress);
+}
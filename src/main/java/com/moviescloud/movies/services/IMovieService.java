@@ -1,22 +1,27 @@
 package com.moviescloud.movies.services;
 
-import com.moviescloud.movies.entities.Country;
-import com.moviescloud.movies.entities.Genre;
+import com.moviescloud.movies.dto.LeaderboardEntry;
+import com.moviescloud.movies.dto.MovieFacets;
+import com.moviescloud.movies.dto.MovieFilter;
 import com.moviescloud.movies.entities.Movie;
-import com.moviescloud.movies.entities.Type;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.List;
+
 public interface IMovieService {
     Page<Movie> findAll(Pageable pageable);
 
-    Page<Movie> findAllByName(Pageable pageable, String keyword);
+    Page<Movie> findAll(Pageable pageable, MovieFilter filter);
+
+    KeysetPage<Movie> findAll(MovieFilter filter, String order, String after, int size);
 
-    Page<Movie> findAllByType(Pageable pageable, Type type);
+    MovieFacets findFacets(MovieFilter filter);
 
-    Page<Movie> findAllByGenres(Pageable pageable, Genre genre);
+    KeysetPage<Movie> findTopRated(int minVotes, String after, int size);
 
-    Page<Movie> findAllByCountries(Pageable pageable, Country country);
+    List<LeaderboardEntry> findTop(Long genre, Long country, Long type, int limit);
 
     Movie findById(Long id);
 
@@ -1,12 +1,15 @@
 package com.moviescloud.movies.services;
 
 import com.moviescloud.movies.entities.Person;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 public interface IPersonService {
     Page<Person> findAll(Pageable pageable);
 
+    KeysetPage<Person> findAll(String order, String after, int size);
+
     Person findById(Long id);
 
     Person save(Person person);
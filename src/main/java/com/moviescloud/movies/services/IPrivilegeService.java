@@ -1,12 +1,15 @@
 package com.moviescloud.movies.services;
 
 import com.moviescloud.movies.entities.Privilege;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 public interface IPrivilegeService {
     Page<Privilege> findAll(Pageable pageable);
 
+    KeysetPage<Privilege> findAll(String order, String after, int size);
+
     Privilege findById(Long id);
 
     Privilege findByName(String name);
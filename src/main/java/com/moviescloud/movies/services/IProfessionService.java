@@ -1,12 +1,15 @@
 package com.moviescloud.movies.services;
 
 import com.moviescloud.movies.entities.Profession;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 public interface IProfessionService {
     Page<Profession> findAll(Pageable pageable);
 
+    KeysetPage<Profession> findAll(String order, String after, int size);
+
     Profession findById(long id);
 
     Profession save(Profession profession);
@@ -1,15 +1,29 @@
 package com.moviescloud.movies.services;
 
+import com.moviescloud.movies.dto.ReviewSummary;
 import com.moviescloud.movies.entities.Review;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 public interface IReviewService {
     Page<Review> findAll(Pageable pageable);
 
+    Page<Review> findAllByMovieId(long movieId, Pageable pageable);
+
+    KeysetPage<Review> findAllByMovieId(long movieId, String after, int size);
+
+    Page<ReviewSummary> findSummariesByMovieId(long movieId, Pageable pageable);
+
+    KeysetPage<ReviewSummary> findSummariesByMovieId(long movieId, String after, int size);
+
     Review findById(Long id);
 
     Review save(Review review);
 
+    Review add(long movieId, Review review);
+
     void delete(Review review);
+
+    void delete(long movieId, long reviewId);
 }
@@ -1,12 +1,15 @@
 package com.moviescloud.movies.services;
 
 import com.moviescloud.movies.entities.User;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 public interface IUserService {
     Page<User> findAll(Pageable pageable);
 
+    KeysetPage<User> findAll(String order, String after, int size);
+
     User findById(Long id);
 
     User save(User user);
@@ -0,0 +1,20 @@
+package com.moviescloud.movies.services;
+
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
+import com.moviescloud.movies.repositories.projections.VoterView;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.util.function.Consumer;
+
+public interface IVoteService {
+    void vote(long movieId, long userId, int score);
+
+    Page<VoterView> findVoters(long movieId, Pageable pageable);
+
+    KeysetPage<VoterView> findVoters(long movieId, String after, int size);
+
+    void forEachVoter(long movieId, Consumer<VoterView> action);
+
+    void requireMovie(long movieId);
+}
@@ -0,0 +1,11 @@
+package com.moviescloud.movies.services.events;
+
+import lombok.Value;
+
+/**
+ * Published inside the transaction that deleted the movie.
+ */
+@Value
+public class MovieDeletedEvent {
+    long movieId;
+}
@@ -0,0 +1,19 @@
+package com.moviescloud.movies.services.events;
+
+import com.moviescloud.movies.entities.Movie;
+import lombok.Value;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Published inside the transaction that created or updated the movies.
+ */
+@Value
+public class MovieSavedEvent {
+    List<Movie> movies;
+
+    public List<Long> getIds() {
+        return movies.stream().map(Movie::getId).collect(Collectors.toList());
+    }
+}
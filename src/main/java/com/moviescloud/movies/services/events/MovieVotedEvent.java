@@ -0,0 +1,11 @@
+package com.moviescloud.movies.services.events;
+
+import lombok.Value;
+
+/**
+ * Published inside the transaction that counted a vote for the movie.
+ */
+@Value
+public class MovieVotedEvent {
+    long movieId;
+}
@@ -0,0 +1,11 @@
+package com.moviescloud.movies.services.events;
+
+import lombok.Value;
+
+/**
+ * Published inside the transaction that saved or deleted the user.
+ */
+@Value
+public class UserChangedEvent {
+    long userId;
+}
@@ -0,0 +1,67 @@
+package com.moviescloud.movies.services.impl;
+
+import com.moviescloud.movies.entities.Change;
+import com.moviescloud.movies.exceptions.BadRequestException;
+import com.moviescloud.movies.repositories.ChangeRepository;
+import com.moviescloud.movies.services.IChangeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Transactional outbox for movies, persons and reviews. Changes are recorded inside the transaction
+ * that makes them, so a committed change is always in the feed and a rolled back one never is.
+ * <p>
+ * Ids are taken when a row is inserted but become visible when its transaction commits, so a
+ * transaction that commits late could publish an id below the position a consumer has already read.
+ * The feed therefore only returns changes older than {@code movies.changes.settle-lag} milliseconds,
+ * which must exceed the longest writing transaction.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ChangeServiceImpl implements IChangeService {
+
+    final ChangeRepository changeRepository;
+
+    @Value("${movies.changes.settle-lag:5000}")
+    private long settleLag;
+
+    @Value("${movies.changes.max-limit:5000}")
+    private int maxLimit;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Change.EntityType entityType, long entityId, Change.Operation operation) {
+        changeRepository.save(new Change(entityType, entityId, operation));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordMovieUpserts(Collection<Long> movieIds) {
+        if (!movieIds.isEmpty()) changeRepository.insertMovieUpserts(movieIds);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordReviewDeletes(long movieId) {
+        changeRepository.insertReviewDeletes(movieId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Change> findAfter(long since, int limit) {
+        log.info("Getting changes after id={}", since);
+        if (limit < 1) throw new BadRequestException("Limit must not be less than one");
+        Date settled = new Date(System.currentTimeMillis() - settleLag);
+        return changeRepository.findAfter(since, settled, PageRequest.of(0, Math.min(limit, maxLimit)));
+    }
+}
@@ -3,41 +3,64 @@ package com.moviescloud.movies.services.impl;
 import com.moviescloud.movies.entities.Country;
 import com.moviescloud.movies.exceptions.ResourceNotFoundException;
 import com.moviescloud.movies.repositories.CountryRepository;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
+import com.moviescloud.movies.repositories.keyset.KeysetRepository;
 import com.moviescloud.movies.services.ICountryService;
+import com.moviescloud.movies.services.impl.cache.ReferenceDataCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class CountryServiceImpl implements ICountryService {
 
     final CountryRepository countryRepository;
+    final KeysetRepository keysetRepository;
+    final ReferenceDataCache<Country> cache = new ReferenceDataCache<>(Country.class, Country::getId,
+            country -> new Country(country.getId(), country.getName()));
+
+    @PostConstruct
+    void loadCache() {
+        cache.reload(countryRepository::findAll);
+        log.info("Cached {} countries", cache.size());
+    }
 
     @Override
     public Page<Country> findAll(Pageable pageable) {
         log.info("Getting a list of countries");
-        return countryRepository.findAll(pageable);
+        return cache.findAll(pageable);
+    }
+
+    @Override
+    public KeysetPage<Country> findAll(String order, String after, int size) {
+        log.info("Getting a list of countries after cursor{}", after);
+        return keysetRepository.findAll(Country.class, null, order, after, size);
     }
 
     @Override
     public Country findById(Long id) {
         log.info("Getting a country by id{}", id);
-        return countryRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Country with id=" + id + " not found"));
+        return cache.get(id).orElseThrow(() -> new ResourceNotFoundException("Country with id=" + id + " not found"));
     }
 
     @Override
     public Country save(Country country) {
         log.info("Save country{}", country);
-        return countryRepository.save(country);
+        Country saved = countryRepository.save(country);
+        loadCache();
+        return saved;
     }
 
     @Override
     public void delete(Country country) {
         log.info("Delete country{}", country);
         countryRepository.delete(country);
+        loadCache();
     }
 }
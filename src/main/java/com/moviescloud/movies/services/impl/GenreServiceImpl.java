@@ -3,41 +3,64 @@ package com.moviescloud.movies.services.impl;
 import com.moviescloud.movies.entities.Genre;
 import com.moviescloud.movies.exceptions.ResourceNotFoundException;
 import com.moviescloud.movies.repositories.GenreRepository;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
+import com.moviescloud.movies.repositories.keyset.KeysetRepository;
 import com.moviescloud.movies.services.IGenreService;
+import com.moviescloud.movies.services.impl.cache.ReferenceDataCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class GenreServiceImpl implements IGenreService {
 
     final GenreRepository genreRepository;
+    final KeysetRepository keysetRepository;
+    final ReferenceDataCache<Genre> cache = new ReferenceDataCache<>(Genre.class, Genre::getId,
+            genre -> new Genre(genre.getId(), genre.getName()));
+
+    @PostConstruct
+    void loadCache() {
+        cache.reload(genreRepository::findAll);
+        log.info("Cached {} genres", cache.size());
+    }
 
     @Override
     public Page<Genre> findAll(Pageable pageable) {
         log.info("Getting a list of genres");
-        return genreRepository.findAll(pageable);
+        return cache.findAll(pageable);
+    }
+
+    @Override
+    public KeysetPage<Genre> findAll(String order, String after, int size) {
+        log.info("Getting a list of genres after cursor{}", after);
+        return keysetRepository.findAll(Genre.class, null, order, after, size);
     }
 
     @Override
     public Genre findById(Long id) {
         log.info("Getting a genre by id=" + id);
-        return genreRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Genre with id=" + id + " not found"));
+        return cache.get(id).orElseThrow(() -> new ResourceNotFoundException("Genre with id=" + id + " not found"));
     }
 
     @Override
     public Genre save(Genre genre) {
         log.info("Save genre " + genre);
-        return genreRepository.save(genre);
+        Genre saved = genreRepository.save(genre);
+        loadCache();
+        return saved;
     }
 
     @Override
     public void delete(Genre genre) {
         log.info("Delete genre " + genre);
         genreRepository.delete(genre);
+        loadCache();
     }
 }
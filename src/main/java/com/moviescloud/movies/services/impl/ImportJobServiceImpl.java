@@ -0,0 +1,110 @@
+package com.moviescloud.movies.services.impl;
+
+import com.moviescloud.movies.dto.ImportJob;
+import com.moviescloud.movies.dto.ImportReport;
+import com.moviescloud.movies.exceptions.ResourceNotFoundException;
+import com.moviescloud.movies.exceptions.ServiceUnavailableException;
+import com.moviescloud.movies.services.IImportJobService;
+import com.moviescloud.movies.services.IMovieImportService;
+import com.moviescloud.movies.services.impl.cache.ExpiringCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+/**
+ * Accepts uploads for the movie import and runs them on the bounded import executor. The upload is
+ * spooled to a temporary file first, so the request ends as soon as the body is received and the
+ * import itself never holds an HTTP thread. Jobs are kept in memory: a finished job stays visible
+ * for {@code movies.import.job-ttl} ms, a running one until it finishes.
+ */
+@Service
+@Slf4j
+public class ImportJobServiceImpl implements IImportJobService {
+
+    final IMovieImportService movieImportService;
+    final TaskExecutor importExecutor;
+    private final ExpiringCache<String, ImportJob> jobs;
+    private final long jobTtl;
+
+    @Autowired
+    public ImportJobServiceImpl(IMovieImportService movieImportService,
+                                @Qualifier("importExecutor") TaskExecutor importExecutor,
+                                @Value("${movies.import.job-ttl}") long jobTtl,
+                                @Value("${movies.import.max-jobs}") int maxJobs) {
+        this.movieImportService = movieImportService;
+        this.importExecutor = importExecutor;
+        this.jobTtl = jobTtl;
+        this.jobs = new ExpiringCache<>(jobTtl, maxJobs);
+    }
+
+    @Override
+    public ImportJob submit(InputStream json) {
+        ImportJob job = new ImportJob(UUID.randomUUID().toString());
+        Path upload = spool(json);
+        jobs.put(job.getId(), job, Long.MAX_VALUE);
+        try {
+            importExecutor.execute(() -> run(job, upload));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.getId());
+            delete(upload);
+            throw new ServiceUnavailableException("Too many imports in progress, try again later");
+        }
+        log.info("Import job {} submitted", job.getId());
+        return job;
+    }
+
+    @Override
+    public ImportJob findById(String id) {
+        ImportJob job = jobs.get(id);
+        if (job == null) throw new ResourceNotFoundException("Import job with id=" + id + " not found");
+        return job;
+    }
+
+    private void run(ImportJob job, Path upload) {
+        job.start();
+        log.info("Import job {} started", job.getId());
+        try (InputStream json = Files.newInputStream(upload)) {
+            ImportReport report = movieImportService.importMovies(json, job::update);
+            job.complete(report);
+            log.info("Import job {} completed: {} imported, {} failed", job.getId(), report.getImported(), report.getFailed());
+        } catch (Exception e) {
+            log.error("Import job {} failed", job.getId(), e);
+            job.fail(e.getMessage());
+        } finally {
+            delete(upload);
+            jobs.put(job.getId(), job, System.currentTimeMillis() + jobTtl);
+        }
+    }
+
+    private static Path spool(InputStream json) {
+        Path upload = null;
+        try {
+            upload = Files.createTempFile("movie-import-", ".json");
+            Files.copy(json, upload, StandardCopyOption.REPLACE_EXISTING);
+            return upload;
+        } catch (IOException e) {
+            if (upload != null) delete(upload);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void delete(Path upload) {
+        try {
+            Files.deleteIfExists(upload);
+        } catch (IOException e) {
+            log.warn("Could not delete import upload {}", upload, e);
+        }
+    }
+}
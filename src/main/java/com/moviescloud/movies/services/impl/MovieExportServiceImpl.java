@@ -0,0 +1,164 @@
+package com.moviescloud.movies.services.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.moviescloud.movies.entities.Country;
+import com.moviescloud.movies.entities.Genre;
+import com.moviescloud.movies.entities.Movie;
+import com.moviescloud.movies.entities.Type;
+import com.moviescloud.movies.exceptions.ServiceUnavailableException;
+import com.moviescloud.movies.services.ICountryService;
+import com.moviescloud.movies.services.IGenreService;
+import com.moviescloud.movies.services.IMovieExportService;
+import com.moviescloud.movies.services.ITypeServices;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+/**
+ * Dumps the catalogue in one pass over the movie table. Rows are read through a forward-only
+ * cursor with {@code movies.export.fetch-size}, genre and country ids are aggregated per movie by
+ * the database, and names are filled in from the reference data, so memory use does not depend on
+ * the size of the catalogue and no OFFSET or count query is issued.
+ * <p>
+ * An export holds a connection for as long as the client takes to read it, so at most
+ * {@code movies.export.max-concurrent} run at once and the pool is left to the other requests.
+ */
+@Service
+@Slf4j
+public class MovieExportServiceImpl implements IMovieExportService {
+    private static final String EXPORT_QUERY =
+            "select m.id, m.name_ru, m.name_en, m.poster_url, m.trailer_url, m.description, m.slogan, m.year, " +
+            "m.movie_length, m.rating_imdb, m.rating_kinopoisk, m.votes_score, m.number_of_votes, m.rating, m.weighted_rating, m.type_id, m.updated_at, " +
+            "g.ids as genre_ids, c.ids as country_ids " +
+            "from movie m " +
+            "left join (select movie_id, array_agg(genres_id) as ids from movie_genres group by movie_id) g on g.movie_id = m.id " +
+            "left join (select movie_id, array_agg(countries_id) as ids from movie_countries group by movie_id) c on c.movie_id = m.id";
+
+    final ObjectMapper objectMapper;
+    final IGenreService genreService;
+    final ICountryService countryService;
+    final ITypeServices typeService;
+    private final JdbcTemplate cursor;
+    private final Semaphore slots;
+
+    @Autowired
+    public MovieExportServiceImpl(ObjectMapper objectMapper,
+                                  IGenreService genreService,
+                                  ICountryService countryService,
+                                  ITypeServices typeService,
+                                  DataSource dataSource,
+                                  @Value("${movies.export.fetch-size}") int fetchSize,
+                                  @Value("${movies.export.max-concurrent}") int maxConcurrent) {
+        this.objectMapper = objectMapper;
+        this.genreService = genreService;
+        this.countryService = countryService;
+        this.typeService = typeService;
+        this.cursor = new JdbcTemplate(dataSource);
+        this.cursor.setFetchSize(fetchSize);
+        this.slots = new Semaphore(maxConcurrent);
+    }
+
+    @Override
+    public void reserve() {
+        if (!slots.tryAcquire()) throw new ServiceUnavailableException("Too many exports are running, try again later");
+    }
+
+    /**
+     * Runs in a read-only transaction because the PostgreSQL driver only honours the fetch size
+     * with auto-commit off; otherwise the whole result set would be buffered on the heap.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void export(OutputStream out) {
+        try {
+            write(out);
+        } finally {
+            slots.release();
+        }
+    }
+
+    private void write(OutputStream out) {
+        log.info("Export of movies started");
+        Map<Long, Genre> genres = index(genreService.findAll(Pageable.unpaged()), Genre::getId);
+        Map<Long, Country> countries = index(countryService.findAll(Pageable.unpaged()), Country::getId);
+        Map<Long, Type> types = index(typeService.findAll(Pageable.unpaged()), Type::getId);
+        long[] exported = {0};
+        try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+            cursor.query(EXPORT_QUERY, rs -> {
+                try {
+                    writer.write(toMovie(rs, genres, countries, types));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                exported[0]++;
+            });
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        log.info("Export of movies finished: {} movies", exported[0]);
+    }
+
+    private static Movie toMovie(ResultSet rs, Map<Long, Genre> genres, Map<Long, Country> countries,
+                                 Map<Long, Type> types) throws SQLException {
+        long typeId = rs.getLong("type_id");
+        Type type = rs.wasNull() ? null : types.get(typeId);
+        return new Movie()
+                .setId(rs.getLong("id"))
+                .setNameRu(rs.getString("name_ru"))
+                .setNameEn(rs.getString("name_en"))
+                .setPosterUrl(rs.getString("poster_url"))
+                .setTrailerUrl(rs.getString("trailer_url"))
+                .setDescription(rs.getString("description"))
+                .setSlogan(rs.getString("slogan"))
+                .setYear(rs.getString("year"))
+                .setMovieLength(rs.getInt("movie_length"))
+                .setRatingImdb(rs.getDouble("rating_imdb"))
+                .setRatingKinopoisk(rs.getDouble("rating_kinopoisk"))
+                .setVotesScore(rs.getDouble("votes_score"))
+                .setNumberOfVotes(rs.getDouble("number_of_votes"))
+                .setRating(rs.getDouble("rating"))
+                .setWeightedRating(rs.getDouble("weighted_rating"))
+                .setUpdatedAt(rs.getTimestamp("updated_at"))
+                .setType(type)
+                .setGenres(resolve(rs.getArray("genre_ids"), genres))
+                .setCountries(resolve(rs.getArray("country_ids"), countries));
+    }
+
+    private static <T> List<T> resolve(Array ids, Map<Long, T> known) throws SQLException {
+        if (ids == null) return new ArrayList<>();
+        try {
+            Object[] values = (Object[]) ids.getArray();
+            List<T> resolved = new ArrayList<>(values.length);
+            for (Object id : values) {
+                T value = id == null ? null : known.get(((Number) id).longValue());
+                if (value != null) resolved.add(value);
+            }
+            return resolved;
+        } finally {
+            ids.free();
+        }
+    }
+
+    private static <T> Map<Long, T> index(Iterable<T> items, Function<T, Long> id) {
+        Map<Long, T> map = new HashMap<>();
+        items.forEach(item -> map.put(id.apply(item), item));
+        return map;
+    }
+}
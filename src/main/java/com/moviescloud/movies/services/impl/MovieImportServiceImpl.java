@@ -0,0 +1,222 @@
+package com.moviescloud.movies.services.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.moviescloud.movies.dto.ImportReport;
+import com.moviescloud.movies.dto.MovieDto;
+import com.moviescloud.movies.entities.Country;
+import com.moviescloud.movies.entities.Genre;
+import com.moviescloud.movies.entities.Movie;
+import com.moviescloud.movies.entities.Type;
+import com.moviescloud.movies.exceptions.BadRequestException;
+import com.moviescloud.movies.services.IChangeService;
+import com.moviescloud.movies.services.ICountryService;
+import com.moviescloud.movies.services.IGenreService;
+import com.moviescloud.movies.services.IMovieImportService;
+import com.moviescloud.movies.services.ITypeServices;
+import com.moviescloud.movies.services.events.MovieSavedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk import of movies given as a JSON array or as NDJSON (one object per line). The input is
+ * parsed one movie at a time, genres, countries and types are resolved against maps loaded once
+ * per import, and movies are written
+ * in batches of {@code movies.import.batch-size}, each in its own transaction, so memory use and
+ * transaction size do not depend on the length of the input. A failed row or batch is reported
+ * and skipped; batches written before it stay committed.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class MovieImportServiceImpl implements IMovieImportService {
+    private static final int MAX_ERRORS = 1000;
+
+    final ObjectMapper objectMapper;
+    final TransactionTemplate transactionTemplate;
+    final IGenreService genreService;
+    final ICountryService countryService;
+    final ITypeServices typeService;
+    final ApplicationEventPublisher eventPublisher;
+    final IChangeService changeService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${movies.import.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public ImportReport importMovies(InputStream json) {
+        return importMovies(json, report -> { });
+    }
+
+    @Override
+    public ImportReport importMovies(InputStream json, Consumer<ImportReport> progress) {
+        log.info("Import of movies started with batch size {}", batchSize);
+        Run run = new Run(progress);
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            JsonToken first = parser.nextToken();
+            boolean array = first == JsonToken.START_ARRAY;
+            if (!array && first != JsonToken.START_OBJECT) {
+                throw new BadRequestException("Expected a JSON array of movies or NDJSON");
+            }
+            JsonToken token = array ? parser.nextToken() : first;
+            for (; token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token == null) {
+                    if (array) run.error(run.row, "Unexpected end of input");
+                    break;
+                }
+                if (token == JsonToken.START_OBJECT) {
+                    run.add(parser.readValueAsTree());
+                } else {
+                    parser.skipChildren();
+                    run.error(run.row, "Expected a JSON object, found " + token);
+                }
+                run.row++;
+            }
+        } catch (JsonProcessingException e) {
+            run.error(run.row, "Malformed JSON: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return run.finish();
+    }
+
+    /**
+     * State of one import: the current batch and the counters for the report.
+     */
+    private class Run {
+        private final Consumer<ImportReport> progress;
+        private final long startedAt = System.nanoTime();
+        private final Map<Long, Genre> genres = index(genreService.findAll(Pageable.unpaged()), Genre::getId);
+        private final Map<Long, Country> countries = index(countryService.findAll(Pageable.unpaged()), Country::getId);
+        private final Map<Long, Type> types = index(typeService.findAll(Pageable.unpaged()), Type::getId);
+        private final List<Movie> batch = new ArrayList<>(batchSize);
+        private final List<ImportReport.Batch> batches = new ArrayList<>();
+        private final List<ImportReport.RowError> errors = new ArrayList<>();
+        private long row;
+        private long batchFirstRow;
+        private int imported;
+        private int failed;
+
+        Run(Consumer<ImportReport> progress) {
+            this.progress = progress;
+        }
+
+        void add(JsonNode node) {
+            Movie movie;
+            try {
+                movie = resolve(objectMapper.treeToValue(node, MovieDto.class).toEntity());
+            } catch (JsonProcessingException e) {
+                error(row, e.getOriginalMessage());
+                return;
+            } catch (IllegalArgumentException e) {
+                error(row, e.getMessage());
+                return;
+            }
+            if (batch.isEmpty()) batchFirstRow = row;
+            batch.add(movie);
+            if (batch.size() == batchSize) write();
+        }
+
+        ImportReport finish() {
+            if (!batch.isEmpty()) write();
+            ImportReport report = report();
+            log.info("Import of movies finished: {} imported, {} failed in {} ms", imported, failed, report.getElapsedMillis());
+            return report;
+        }
+
+        private ImportReport report() {
+            long elapsed = System.nanoTime() - startedAt;
+            return new ImportReport(imported, failed, elapsed / 1_000_000, perSecond(imported, elapsed),
+                    new ArrayList<>(batches), new ArrayList<>(errors));
+        }
+
+        void error(long row, String message) {
+            failed++;
+            if (errors.size() < MAX_ERRORS) errors.add(new ImportReport.RowError(row, message));
+        }
+
+        private void write() {
+            long start = System.nanoTime();
+            int written = 0;
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    batch.forEach(entityManager::persist);
+                    entityManager.flush();
+                    entityManager.clear();
+                    changeService.recordMovieUpserts(batch.stream().map(Movie::getId).collect(Collectors.toList()));
+                    eventPublisher.publishEvent(new MovieSavedEvent(new ArrayList<>(batch)));
+                });
+                written = batch.size();
+                imported += written;
+            } catch (DataAccessException | PersistenceException e) {
+                log.warn("Import batch starting at row {} failed", batchFirstRow, e);
+                failed += batch.size();
+                if (errors.size() < MAX_ERRORS) {
+                    errors.add(new ImportReport.RowError(batchFirstRow,
+                            "Batch of " + batch.size() + " rows was not written: " + e.getMessage()));
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            ImportReport.Batch report = new ImportReport.Batch(batches.size() + 1, batchFirstRow, written,
+                    batch.size() - written, elapsed / 1_000_000, perSecond(written, elapsed));
+            batches.add(report);
+            log.info("Import batch {}: {} rows from row {} in {} ms ({} rows/s)",
+                    report.getNumber(), written, batchFirstRow, report.getElapsedMillis(), (long) report.getRowsPerSecond());
+            batch.clear();
+            progress.accept(report());
+        }
+
+        private Movie resolve(Movie movie) {
+            movie.setGenres(resolve(movie.getGenres(), genres, Genre::getId, "Genre"));
+            movie.setCountries(resolve(movie.getCountries(), countries, Country::getId, "Country"));
+            if (movie.getType() != null) {
+                movie.setType(lookup(types, movie.getType().getId(), "Type"));
+            }
+            return movie;
+        }
+
+        private <T> List<T> resolve(List<T> references, Map<Long, T> known, Function<T, Long> id, String name) {
+            if (references == null) return new ArrayList<>();
+            return references.stream().map(reference -> lookup(known, id.apply(reference), name)).collect(Collectors.toList());
+        }
+
+        private <T> T lookup(Map<Long, T> known, Long id, String name) {
+            T value = id == null ? null : known.get(id);
+            if (value == null) throw new IllegalArgumentException(name + " with id=" + id + " not found");
+            return value;
+        }
+    }
+
+    private static <T> Map<Long, T> index(Iterable<T> items, Function<T, Long> id) {
+        Map<Long, T> map = new HashMap<>();
+        items.forEach(item -> map.put(id.apply(item), item));
+        return map;
+    }
+
+    private static double perSecond(long rows, long nanos) {
+        return nanos == 0 ? 0 : rows * 1_000_000_000d / nanos;
+    }
+}
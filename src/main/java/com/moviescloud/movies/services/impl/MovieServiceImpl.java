@@ -1,17 +1,41 @@
 package com.moviescloud.movies.services.impl;
 
-import com.moviescloud.movies.entities.Country;
-import com.moviescloud.movies.entities.Genre;
+import com.moviescloud.movies.dto.LeaderboardEntry;
+import com.moviescloud.movies.dto.MovieFacets;
+import com.moviescloud.movies.dto.MovieFilter;
+import com.moviescloud.movies.entities.Change;
 import com.moviescloud.movies.entities.Movie;
-import com.moviescloud.movies.entities.Type;
+import com.moviescloud.movies.exceptions.BadRequestException;
 import com.moviescloud.movies.exceptions.ResourceNotFoundException;
+import com.moviescloud.movies.repositories.MovieFacetRepository;
 import com.moviescloud.movies.repositories.MovieRepository;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
+import com.moviescloud.movies.repositories.keyset.KeysetRepository;
+import com.moviescloud.movies.repositories.specifications.MovieSpecifications;
+import com.moviescloud.movies.services.IChangeService;
+import com.moviescloud.movies.services.ICountryService;
+import com.moviescloud.movies.services.IGenreService;
 import com.moviescloud.movies.services.IMovieService;
+import com.moviescloud.movies.services.ITypeServices;
+import com.moviescloud.movies.services.events.MovieDeletedEvent;
+import com.moviescloud.movies.services.events.MovieSavedEvent;
+import com.moviescloud.movies.services.impl.catalogue.MovieCatalogue;
+import com.moviescloud.movies.services.impl.leaderboard.MovieLeaderboards;
+import com.moviescloud.movies.services.impl.search.MovieTitleIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
@@ -19,35 +43,87 @@ import org.springframework.stereotype.Service;
 public class MovieServiceImpl implements IMovieService {
 
     final MovieRepository movieRepository;
+    final MovieTitleIndex movieTitleIndex;
+    final MovieLeaderboards movieLeaderboards;
+    final Optional<MovieCatalogue> movieCatalogue;
+    final KeysetRepository keysetRepository;
+    final MovieFacetRepository movieFacetRepository;
+    final IChangeService changeService;
+    final IGenreService genreService;
+    final ICountryService countryService;
+    final ITypeServices typeServices;
+    final ApplicationEventPublisher eventPublisher;
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Movie> findAll(Pageable pageable) {
         log.info("Getting a list of movies");
-        return movieRepository.findAll(pageable);
+        return fetchAssociations(movieRepository.findAll(pageable));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Movie> findAll(Pageable pageable, MovieFilter filter) {
+        log.info("Getting a list of movies by filter{}", filter);
+        checkReferences(filter);
+        Page<Long> ids = movieCatalogue.map(catalogue -> catalogue.find(filter, pageable)).orElse(null);
+        if (ids != null) {
+            return new PageImpl<>(fetchAssociations(findAllInOrder(ids.getContent())), pageable, ids.getTotalElements());
+        }
+        return fetchAssociations(movieRepository.findAll(toSpecification(filter), pageable));
     }
 
     @Override
-    public Page<Movie> findAllByName(Pageable pageable, String keyword) {
-        log.info("Getting a list of movies by keyword{}", keyword);
-        return movieRepository.findAllByNameRuContainingIgnoreCase(pageable, keyword);
+    @Transactional(readOnly = true)
+    public KeysetPage<Movie> findAll(MovieFilter filter, String order, String after, int size) {
+        log.info("Getting a list of movies by filter{} after cursor{}", filter, after);
+        checkReferences(filter);
+        KeysetPage<Movie> page = keysetRepository.findAll(Movie.class, toSpecification(filter), order, after, size, Movie.LISTING_GRAPH);
+        fetchAssociations(page.getItems());
+        return page;
     }
 
+    /**
+     * Each facet is counted under every filter except its own, so the counts show how many movies
+     * selecting another value of that facet would add. The keyword is resolved once for all facets.
+     */
     @Override
-    public Page<Movie> findAllByType(Pageable pageable, Type type) {
-        log.info("Getting a list of movies by type{}", type);
-        return movieRepository.findAllByType(pageable, type);
+    @Transactional(readOnly = true)
+    public MovieFacets findFacets(MovieFilter filter) {
+        log.info("Getting movie facets by filter{}", filter);
+        checkReferences(filter);
+        Specification<Movie> keyword = keywordSpecification(filter.getKeyword());
+        return new MovieFacets(
+                movieFacetRepository.countBy("genres", withKeyword(filter.toBuilder().genres(null).build(), keyword)),
+                movieFacetRepository.countBy("countries", withKeyword(filter.toBuilder().countries(null).build(), keyword)),
+                movieFacetRepository.countBy("type", withKeyword(filter.toBuilder().type(null).build(), keyword)),
+                movieFacetRepository.countByYear(withKeyword(filter.toBuilder().years(null).build(), keyword)));
     }
 
+    /**
+     * Walks the weighted rating index from the top, so a page costs the same whatever its position.
+     */
     @Override
-    public Page<Movie> findAllByGenres(Pageable pageable, Genre genre) {
-        log.info("Getting a list of movies by genres{}", genre);
-        return movieRepository.findAllByGenres(pageable, genre);
+    @Transactional(readOnly = true)
+    public KeysetPage<Movie> findTopRated(int minVotes, String after, int size) {
+        log.info("Getting top rated movies with at least {} votes after cursor{}", minVotes, after);
+        Specification<Movie> voted = (root, query, cb) -> cb.ge(root.get("numberOfVotes"), Math.max(minVotes, 1));
+        KeysetPage<Movie> page = keysetRepository.findAll(Movie.class, voted, Sort.Order.desc("weightedRating"), after, size,
+                Movie.LISTING_GRAPH);
+        fetchAssociations(page.getItems());
+        return page;
     }
 
     @Override
-    public Page<Movie> findAllByCountries(Pageable pageable, Country country) {
-        log.info("Getting a list of movie by countries{}", country);
-        return movieRepository.findAllByCountries(pageable, country);
+    public List<LeaderboardEntry> findTop(Long genre, Long country, Long type, int limit) {
+        log.info("Getting top movies of genre={} country={} type={}", genre, country, type);
+        if (limit < 1) throw new BadRequestException("Limit must not be less than one");
+        if ((genre != null ? 1 : 0) + (country != null ? 1 : 0) + (type != null ? 1 : 0) != 1) {
+            throw new BadRequestException("Exactly one of genre, country or type must be given");
+        }
+        if (genre != null) return movieLeaderboards.top(MovieLeaderboards.Dimension.GENRE, genre, limit);
+        if (country != null) return movieLeaderboards.top(MovieLeaderboards.Dimension.COUNTRY, country, limit);
+        return movieLeaderboards.top(MovieLeaderboards.Dimension.TYPE, type, limit);
     }
 
     @Override
@@ -57,14 +133,74 @@ public class MovieServiceImpl implements IMovieService {
     }
 
     @Override
+    @Transactional
     public Movie save(Movie movie) {
         log.info("Save movie:" + movie);
-        return movieRepository.save(movie);
+        Movie saved = movieRepository.save(movie);
+        changeService.record(Change.EntityType.MOVIE, saved.getId(), Change.Operation.UPSERT);
+        eventPublisher.publishEvent(new MovieSavedEvent(Collections.singletonList(saved)));
+        return saved;
     }
 
+    /**
+     * Reviews of the movie are removed by the database cascade, so their deletes are recorded beforehand.
+     */
     @Override
+    @Transactional
     public void delete(Movie movie) {
         log.info("Delete movie: " + movie);
+        changeService.recordReviewDeletes(movie.getId());
         movieRepository.delete(movie);
+        changeService.record(Change.EntityType.MOVIE, movie.getId(), Change.Operation.DELETE);
+        eventPublisher.publishEvent(new MovieDeletedEvent(movie.getId()));
+    }
+
+    /**
+     * Unknown genre, country or type ids are answered with 404, as before the filters were combined,
+     * rather than with an empty page. The lookups are served from the reference data caches.
+     */
+    private void checkReferences(MovieFilter filter) {
+        if (filter.getGenres() != null) filter.getGenres().forEach(genreService::findById);
+        if (filter.getCountries() != null) filter.getCountries().forEach(countryService::findById);
+        if (filter.getType() != null) typeServices.findById(filter.getType());
+    }
+
+    /**
+     * Loads the page chosen by the catalogue in one query and restores its order;
+     * movies deleted in the meantime are left out.
+     */
+    private List<Movie> findAllInOrder(List<Long> ids) {
+        if (ids.isEmpty()) return new ArrayList<>();
+        Map<Long, Movie> movies = movieRepository.findAllByIdIn(ids).stream()
+                .collect(Collectors.toMap(Movie::getId, Function.identity()));
+        return ids.stream().map(movies::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+
+    /**
+     * Listing fetch plan: the page query joins the type, then genres and countries of the whole
+     * page are initialized by one query each, so a page costs the same number of statements
+     * whatever its size. Both collections are bags and can not be fetched by a single join.
+     */
+    private <C extends Iterable<Movie>> C fetchAssociations(C movies) {
+        List<Long> ids = new ArrayList<>();
+        movies.forEach(movie -> ids.add(movie.getId()));
+        if (!ids.isEmpty()) {
+            movieRepository.fetchGenres(ids);
+            movieRepository.fetchCountries(ids);
+        }
+        return movies;
+    }
+
+    private Specification<Movie> toSpecification(MovieFilter filter) {
+        return withKeyword(filter, keywordSpecification(filter.getKeyword()));
+    }
+
+    private Specification<Movie> keywordSpecification(String keyword) {
+        List<Long> ids = movieTitleIndex.search(keyword);
+        return ids == null ? MovieSpecifications.nameContains(keyword) : MovieSpecifications.idIn(ids);
+    }
+
+    private static Specification<Movie> withKeyword(MovieFilter filter, Specification<Movie> keyword) {
+        return MovieSpecifications.byFilter(filter.toBuilder().keyword(null).build()).and(keyword);
     }
 }
@@ -1,14 +1,22 @@
 package com.moviescloud.movies.services.impl;
 
+import com.moviescloud.movies.entities.Change;
 import com.moviescloud.movies.entities.Person;
 import com.moviescloud.movies.exceptions.ResourceNotFoundException;
 import com.moviescloud.movies.repositories.PersonRepository;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
+import com.moviescloud.movies.repositories.keyset.KeysetRepository;
+import com.moviescloud.movies.services.IChangeService;
 import com.moviescloud.movies.services.IPersonService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Service
 @Slf4j
@@ -16,11 +24,23 @@ import org.springframework.stereotype.Service;
 public class PersonServiceImpl implements IPersonService {
 
     final PersonRepository personRepository;
+    final KeysetRepository keysetRepository;
+    final IChangeService changeService;
 
     @Override
+    @Transactional(readOnly = true)
     public Page<Person> findAll(Pageable pageable) {
         log.info("Getting a list of persons");
-        return personRepository.findAll(pageable);
+        return fetchAssociations(personRepository.findAll(pageable));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPage<Person> findAll(String order, String after, int size) {
+        log.info("Getting a list of persons after cursor{}", after);
+        KeysetPage<Person> page = keysetRepository.findAll(Person.class, null, order, after, size, Person.LISTING_GRAPH);
+        fetchAssociations(page.getItems());
+        return page;
     }
 
     @Override
@@ -30,14 +50,30 @@ public class PersonServiceImpl implements IPersonService {
     }
 
     @Override
+    @Transactional
     public Person save(Person person) {
         log.info("Save person={}", person);
-        return personRepository.save(person);
+        Person saved = personRepository.save(person);
+        changeService.record(Change.EntityType.PERSON, saved.getId(), Change.Operation.UPSERT);
+        return saved;
     }
 
     @Override
+    @Transactional
     public void delete(Person person) {
         log.info("Delete person={}", person);
         personRepository.delete(person);
+        changeService.record(Change.EntityType.PERSON, person.getId(), Change.Operation.DELETE);
+    }
+
+    /**
+     * Listing fetch plan: the page query joins the birth place, then the professions of the whole page
+     * are initialized by one query, instead of one query per person when the page is serialized.
+     */
+    private <C extends Iterable<Person>> C fetchAssociations(C persons) {
+        List<Long> ids = new ArrayList<>();
+        persons.forEach(person -> ids.add(person.getId()));
+        if (!ids.isEmpty()) personRepository.fetchProfessions(ids);
+        return persons;
     }
 }
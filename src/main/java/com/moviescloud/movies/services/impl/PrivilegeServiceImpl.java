@@ -3,47 +3,70 @@ package com.moviescloud.movies.services.impl;
 import com.moviescloud.movies.entities.Privilege;
 import com.moviescloud.movies.exceptions.ResourceNotFoundException;
 import com.moviescloud.movies.repositories.PrivilegeRepository;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
+import com.moviescloud.movies.repositories.keyset.KeysetRepository;
 import com.moviescloud.movies.services.IPrivilegeService;
+import com.moviescloud.movies.services.impl.cache.ReferenceDataCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class PrivilegeServiceImpl implements IPrivilegeService {
 
     final PrivilegeRepository privilegeRepository;
+    final KeysetRepository keysetRepository;
+    final ReferenceDataCache<Privilege> cache = new ReferenceDataCache<>(Privilege.class, Privilege::getId,
+            privilege -> new Privilege(privilege.getId(), privilege.getPrivilegeName()));
+
+    @PostConstruct
+    void loadCache() {
+        cache.reload(privilegeRepository::findAll);
+        log.info("Cached {} privileges", cache.size());
+    }
 
     @Override
     public Page<Privilege> findAll(Pageable pageable) {
         log.info("Get a list of privileges");
-        return privilegeRepository.findAll(pageable);
+        return cache.findAll(pageable);
+    }
+
+    @Override
+    public KeysetPage<Privilege> findAll(String order, String after, int size) {
+        log.info("Getting a list of privileges after cursor{}", after);
+        return keysetRepository.findAll(Privilege.class, null, order, after, size);
     }
 
     @Override
     public Privilege findById(Long id) {
         log.info("Get a privilege by id{}", id);
-        return privilegeRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Privilege with id=" + id + " not found"));
+        return cache.get(id).orElseThrow(() -> new ResourceNotFoundException("Privilege with id=" + id + " not found"));
     }
 
     @Override
     public Privilege findByName(String name) {
         log.info("Get a privilege by name{}", name);
-        return privilegeRepository.findByPrivilegeName(name).orElseThrow(() -> new ResourceNotFoundException("Privilege with name=" + name + " not found"));
+        return cache.find(privilege -> privilege.getPrivilegeName().equals(name)).orElseThrow(() -> new ResourceNotFoundException("Privilege with name=" + name + " not found"));
     }
 
     @Override
     public Privilege save(Privilege privilege) {
         log.info("Save a new privilege{}", privilege);
-        return privilegeRepository.save(privilege);
+        Privilege saved = privilegeRepository.save(privilege);
+        loadCache();
+        return saved;
     }
 
     @Override
     public void delete(Privilege privilege) {
         log.info("Delete a privilege{}", privilege);
         privilegeRepository.delete(privilege);
+        loadCache();
     }
 }
@@ -3,41 +3,64 @@ package com.moviescloud.movies.services.impl;
 import com.moviescloud.movies.entities.Profession;
 import com.moviescloud.movies.exceptions.ResourceNotFoundException;
 import com.moviescloud.movies.repositories.ProfessionRepository;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
+import com.moviescloud.movies.repositories.keyset.KeysetRepository;
 import com.moviescloud.movies.services.IProfessionService;
+import com.moviescloud.movies.services.impl.cache.ReferenceDataCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class ProfessionServiceImpl implements IProfessionService {
 
     final ProfessionRepository professionRepository;
+    final KeysetRepository keysetRepository;
+    final ReferenceDataCache<Profession> cache = new ReferenceDataCache<>(Profession.class, Profession::getId,
+            profession -> new Profession(profession.getId(), profession.getProfessionName()));
+
+    @PostConstruct
+    void loadCache() {
+        cache.reload(professionRepository::findAll);
+        log.info("Cached {} professions", cache.size());
+    }
 
     @Override
     public Page<Profession> findAll(Pageable pageable) {
         log.info("Getting a list of profession");
-        return professionRepository.findAll(pageable);
+        return cache.findAll(pageable);
+    }
+
+    @Override
+    public KeysetPage<Profession> findAll(String order, String after, int size) {
+        log.info("Getting a list of professions after cursor{}", after);
+        return keysetRepository.findAll(Profession.class, null, order, after, size);
     }
 
     @Override
     public Profession findById(long id) {
         log.info("Getting profession by id{}", id);
-        return professionRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Profession with id=" + id + " not found"));
+        return cache.get(id).orElseThrow(() -> new ResourceNotFoundException("Profession with id=" + id + " not found"));
     }
 
     @Override
     public Profession save(Profession profession) {
         log.info("Save profession{}", profession);
-        return professionRepository.save(profession);
+        Profession saved = professionRepository.save(profession);
+        loadCache();
+        return saved;
     }
 
     @Override
     public void delete(Profession profession) {
         log.info("Delete profession{}", profession);
         professionRepository.delete(profession);
+        loadCache();
     }
 }
@@ -1,21 +1,40 @@
 package com.moviescloud.movies.services.impl;
 
+import com.moviescloud.movies.dto.ReviewSummary;
+import com.moviescloud.movies.entities.Change;
 import com.moviescloud.movies.entities.Review;
 import com.moviescloud.movies.exceptions.ResourceNotFoundException;
+import com.moviescloud.movies.repositories.MovieRepository;
 import com.moviescloud.movies.repositories.ReviewRepository;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
+import com.moviescloud.movies.repositories.keyset.KeysetRepository;
+import com.moviescloud.movies.services.IChangeService;
 import com.moviescloud.movies.services.IReviewService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class ReviewServiceImpl implements IReviewService {
+    /**
+     * Reviews of a movie are listed newest first.
+     */
+    private static final Sort.Order ORDER = Sort.Order.desc("createdAt");
 
     final ReviewRepository reviewRepository;
+    final MovieRepository movieRepository;
+    final KeysetRepository keysetRepository;
+    final IChangeService changeService;
 
     @Override
     public Page<Review> findAll(Pageable pageable) {
@@ -23,6 +42,39 @@ public class ReviewServiceImpl implements IReviewService {
         return reviewRepository.findAll(pageable);
     }
 
+    @Override
+    public Page<Review> findAllByMovieId(long movieId, Pageable pageable) {
+        log.info("Getting a list of reviews for movie id={}", movieId);
+        Page<Review> reviews = reviewRepository.findAllByMovieId(movieId, newestFirst(pageable));
+        if (reviews.isEmpty()) requireMovie(movieId);
+        return reviews;
+    }
+
+    @Override
+    public KeysetPage<Review> findAllByMovieId(long movieId, String after, int size) {
+        log.info("Getting a list of reviews for movie id={} after cursor{}", movieId, after);
+        KeysetPage<Review> reviews = keysetRepository.findAll(Review.class, ofMovie(movieId), ORDER, after, size, null);
+        if (reviews.getItems().isEmpty()) requireMovie(movieId);
+        return reviews;
+    }
+
+    @Override
+    public Page<ReviewSummary> findSummariesByMovieId(long movieId, Pageable pageable) {
+        log.info("Getting a list of review summaries for movie id={}", movieId);
+        Page<ReviewSummary> reviews = reviewRepository.findSummariesByMovieId(movieId, newestFirst(pageable));
+        if (reviews.isEmpty()) requireMovie(movieId);
+        return reviews;
+    }
+
+    @Override
+    public KeysetPage<ReviewSummary> findSummariesByMovieId(long movieId, String after, int size) {
+        log.info("Getting a list of review summaries for movie id={} after cursor{}", movieId, after);
+        KeysetPage<ReviewSummary> reviews = keysetRepository.findAll(Review.class, ofMovie(movieId), ORDER, after, size,
+                ReviewSummary.class, "id", "title", "createdAt");
+        if (reviews.getItems().isEmpty()) requireMovie(movieId);
+        return reviews;
+    }
+
     @Override
     public Review findById(Long id) {
         log.info("Get a review by id{}", id);
@@ -30,14 +82,60 @@ public class ReviewServiceImpl implements IReviewService {
     }
 
     @Override
+    @Transactional
     public Review save(Review review) {
         log.info("Save a review{}", review);
-        return reviewRepository.save(review);
+        if (review.getCreatedAt() == null) review.setCreatedAt(new Date());
+        Review saved = reviewRepository.save(review);
+        changeService.record(Change.EntityType.REVIEW, saved.getId(), Change.Operation.UPSERT);
+        return saved;
     }
 
+    /**
+     * Inserts the review row only: reviews point at their movie, so neither the movie
+     * nor its other reviews are read or written.
+     */
     @Override
+    @Transactional
+    public Review add(long movieId, Review review) {
+        log.info("Add a review{} to movie id={}", review, movieId);
+        requireMovie(movieId);
+        review.setMovieId(movieId);
+        if (review.getCreatedAt() == null) review.setCreatedAt(new Date());
+        Review saved = reviewRepository.save(review);
+        changeService.record(Change.EntityType.REVIEW, saved.getId(), Change.Operation.UPSERT);
+        return saved;
+    }
+
+    @Override
+    @Transactional
     public void delete(Review review) {
         log.info("Delete a review{}", review);
         reviewRepository.delete(review);
+        changeService.record(Change.EntityType.REVIEW, review.getId(), Change.Operation.DELETE);
+    }
+
+    @Override
+    @Transactional
+    public void delete(long movieId, long reviewId) {
+        log.info("Delete a review id={} of movie id={}", reviewId, movieId);
+        if (reviewRepository.deleteByIdAndMovieId(reviewId, movieId) == 0) {
+            throw new ResourceNotFoundException("Review with id=" + reviewId + " not found for movie with id=" + movieId);
+        }
+        changeService.record(Change.EntityType.REVIEW, reviewId, Change.Operation.DELETE);
+    }
+
+    private static Pageable newestFirst(Pageable pageable) {
+        return PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(ORDER, Sort.Order.desc("id")));
+    }
+
+    private static Specification<Review> ofMovie(long movieId) {
+        return (root, query, cb) -> cb.equal(root.get("movieId"), movieId);
+    }
+
+    private void requireMovie(long movieId) {
+        if (!movieRepository.existsById(movieId)) {
+            throw new ResourceNotFoundException("Movie with id=" + movieId + " not found");
+        }
     }
 }
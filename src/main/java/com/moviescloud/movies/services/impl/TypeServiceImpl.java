@@ -4,28 +4,39 @@ import com.moviescloud.movies.entities.Type;
 import com.moviescloud.movies.exceptions.ResourceNotFoundException;
 import com.moviescloud.movies.repositories.TypeRepository;
 import com.moviescloud.movies.services.ITypeServices;
+import com.moviescloud.movies.services.impl.cache.ReferenceDataCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class TypeServiceImpl implements ITypeServices {
 
     final TypeRepository typeRepository;
+    final ReferenceDataCache<Type> cache = new ReferenceDataCache<>(Type.class, Type::getId,
+            type -> new Type(type.getId(), type.getName()));
+
+    @PostConstruct
+    void loadCache() {
+        cache.reload(typeRepository::findAll);
+        log.info("Cached {} types", cache.size());
+    }
 
     @Override
     public Page<Type> findAll(Pageable pageable) {
         log.info("Getting a list of type movies");
-        return typeRepository.findAll(pageable);
+        return cache.findAll(pageable);
     }
 
     @Override
     public Type findById(Long id) {
         log.info("Getting a list of type movie by id{}", id);
-        return typeRepository.findById(id).orElseThrow(() -> new ResourceNotFoundException("Type movie with id = " + id + " not found"));
+        return cache.get(id).orElseThrow(() -> new ResourceNotFoundException("Type movie with id = " + id + " not found"));
     }
 }
@@ -3,9 +3,13 @@ package com.moviescloud.movies.services.impl;
 import com.moviescloud.movies.entities.User;
 import com.moviescloud.movies.exceptions.ResourceNotFoundException;
 import com.moviescloud.movies.repositories.UserRepository;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
+import com.moviescloud.movies.repositories.keyset.KeysetRepository;
 import com.moviescloud.movies.services.IUserService;
+import com.moviescloud.movies.services.events.UserChangedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -16,6 +20,8 @@ import org.springframework.stereotype.Service;
 public class UserServiceImpl implements IUserService {
 
     final UserRepository userRepository;
+    final KeysetRepository keysetRepository;
+    final ApplicationEventPublisher eventPublisher;
 
     @Override
     public Page<User> findAll(Pageable pageable) {
@@ -23,6 +29,12 @@ public class UserServiceImpl implements IUserService {
         return userRepository.findAll(pageable);
     }
 
+    @Override
+    public KeysetPage<User> findAll(String order, String after, int size) {
+        log.info("Getting a list of users after cursor{}", after);
+        return keysetRepository.findAll(User.class, null, order, after, size);
+    }
+
     @Override
     public User findById(Long id) {
         log.info("Getting user by id{}", id);
@@ -32,13 +44,16 @@ public class UserServiceImpl implements IUserService {
     @Override
     public User save(User user) {
         log.info("Save user{}", user);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(saved.getId()));
+        return saved;
     }
 
     @Override
     public void delete(User user) {
         log.info("Delete user{}", user);
         userRepository.delete(user);
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId()));
     }
 
     @Override
@@ -0,0 +1,123 @@
+package com.moviescloud.movies.services.impl;
+
+import com.moviescloud.movies.entities.Change;
+import com.moviescloud.movies.entities.Vote;
+import com.moviescloud.movies.exceptions.ConflictException;
+import com.moviescloud.movies.exceptions.ResourceNotFoundException;
+import com.moviescloud.movies.repositories.MovieRepository;
+import com.moviescloud.movies.repositories.VoteRepository;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
+import com.moviescloud.movies.repositories.keyset.KeysetRepository;
+import com.moviescloud.movies.repositories.projections.VoterView;
+import com.moviescloud.movies.services.IChangeService;
+import com.moviescloud.movies.services.IVoteService;
+import com.moviescloud.movies.services.events.MovieVotedEvent;
+import com.moviescloud.movies.services.impl.rating.WeightedRating;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class VoteServiceImpl implements IVoteService {
+
+    final VoteRepository voteRepository;
+    final MovieRepository movieRepository;
+    final KeysetRepository keysetRepository;
+    final WeightedRating weightedRating;
+    final IChangeService changeService;
+    final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Counters and ratings are updated by a single UPDATE, so concurrent votes never overwrite each other.
+     * A repeated vote is answered by a probe of the unique (movie, user) index before the movie row
+     * is locked; two racing first votes are settled by the insert itself, which skips the row on
+     * conflict, and the loser's increment is rolled back. The new ratings are published to the change feed
+     * in the same transaction.
+     */
+    @Override
+    @Transactional
+    public void vote(long movieId, long userId, int score) {
+        log.info("Vote for movie id={} by user id={} with score{}", movieId, userId, score);
+        if (voteRepository.existsByMovieIdAndUserId(movieId, userId)) {
+            throw alreadyVoted(movieId, userId);
+        }
+        if (movieRepository.addVote(movieId, score, weightedRating.getMinVotes(), weightedRating.getPrior()) == 0) {
+            throw new ResourceNotFoundException("Movie with id=" + movieId + " not found");
+        }
+        if (voteRepository.insertIfAbsent(movieId, userId, score) == 0) {
+            throw alreadyVoted(movieId, userId);
+        }
+        changeService.record(Change.EntityType.MOVIE, movieId, Change.Operation.UPSERT);
+        eventPublisher.publishEvent(new MovieVotedEvent(movieId));
+    }
+
+    /**
+     * Voters are read as {@link VoterView} projections, so a page costs the same number of statements
+     * whatever its size: the users' privileges are never loaded.
+     */
+    @Override
+    public Page<VoterView> findVoters(long movieId, Pageable pageable) {
+        log.info("Getting a list of voters for movie id={}", movieId);
+        Page<VoterView> voters = voteRepository.findVoters(movieId,
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+        if (voters.isEmpty()) requireMovie(movieId);
+        return voters;
+    }
+
+    @Override
+    public KeysetPage<VoterView> findVoters(long movieId, String after, int size) {
+        log.info("Getting a list of voters for movie id={} after cursor{}", movieId, after);
+        KeysetPage<Vote> votes = keysetRepository.findAll(Vote.class,
+                (root, query, cb) -> cb.equal(root.get("movieId"), movieId), "id", after, size);
+        if (votes.getItems().isEmpty()) {
+            requireMovie(movieId);
+            return new KeysetPage<>(List.of(), null);
+        }
+        Map<Long, VoterView> voters = voteRepository.findVotersByUserIds(
+                        votes.getItems().stream().map(Vote::getUserId).collect(Collectors.toList()))
+                .stream().collect(Collectors.toMap(VoterView::getId, Function.identity()));
+        return new KeysetPage<>(votes.getItems().stream().map(vote -> voters.get(vote.getUserId())).collect(Collectors.toList()),
+                votes.getNextCursor());
+    }
+
+    /**
+     * Reads the voters through a database cursor and hands them over one by one,
+     * so the full list is never held in memory.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachVoter(long movieId, Consumer<VoterView> action) {
+        log.info("Streaming voters for movie id={}", movieId);
+        try (Stream<VoterView> voters = voteRepository.streamVoters(movieId)) {
+            voters.forEach(action);
+        }
+    }
+
+    /**
+     * Answers an unknown movie with 404 without loading it; a stream of voters is checked before it starts.
+     */
+    @Override
+    public void requireMovie(long movieId) {
+        if (!movieRepository.existsById(movieId)) {
+            throw new ResourceNotFoundException("Movie with id=" + movieId + " not found");
+        }
+    }
+
+    private static ConflictException alreadyVoted(long movieId, long userId) {
+        return new ConflictException("User with id=" + userId + " has already voted for movie with id=" + movieId);
+    }
+}
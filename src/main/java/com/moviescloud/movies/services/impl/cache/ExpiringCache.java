@@ -0,0 +1,116 @@
+package com.moviescloud.movies.services.impl.cache;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Concurrent, size-bounded cache whose entries expire at a fixed point in time.
+ * Expired entries are dropped on read; when the cache is full the expired and then the
+ * oldest entries are evicted in one batch, so eviction cost is amortized over many inserts.
+ * Hits and misses of {@link #get(Object)} and puts are counted for {@link ExpiringCacheMetrics}.
+ */
+public class ExpiringCache<K, V> {
+    private final long ttlMillis;
+    private final int maxSize;
+    private final Clock clock;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+
+    public ExpiringCache(long ttlMillis, int maxSize) {
+        this(ttlMillis, maxSize, Clock.systemUTC());
+    }
+
+    public ExpiringCache(long ttlMillis, int maxSize, Clock clock) {
+        this.ttlMillis = ttlMillis;
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt <= clock.millis()) {
+            entries.remove(key, entry);
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        put(key, value, clock.millis() + ttlMillis);
+    }
+
+    public void put(K key, V value, long expiresAt) {
+        if (maxSize <= 0) return;
+        if (entries.size() >= maxSize && !entries.containsKey(key)) {
+            evict();
+        }
+        entries.put(key, new Entry<>(value, expiresAt));
+        puts.increment();
+    }
+
+    public void remove(K key) {
+        entries.remove(key);
+    }
+
+    public void removeIf(Predicate<V> predicate) {
+        entries.values().removeIf(entry -> predicate.test(entry.value));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long puts() {
+        return puts.sum();
+    }
+
+    private synchronized void evict() {
+        if (entries.size() < maxSize) return;
+        long now = clock.millis();
+        entries.values().removeIf(entry -> entry.expiresAt <= now);
+        if (entries.size() < maxSize) return;
+
+        List<Map.Entry<K, Entry<V>>> oldest = new ArrayList<>(entries.entrySet());
+        oldest.sort(Comparator.comparingLong(entry -> entry.getValue().expiresAt));
+        int toEvict = Math.max(1, maxSize / 8);
+        for (int i = 0; i < toEvict && i < oldest.size(); i++) {
+            entries.remove(oldest.get(i).getKey(), oldest.get(i).getValue());
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.moviescloud.movies.services.impl.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+/**
+ * Publishes the standard {@code cache.gets}, {@code cache.puts} and {@code cache.size} meters of an {@link ExpiringCache}.
+ */
+public class ExpiringCacheMetrics extends CacheMeterBinder<ExpiringCache<?, ?>> {
+
+    public ExpiringCacheMetrics(ExpiringCache<?, ?> cache, String cacheName) {
+        super(cache, cacheName, Tags.empty());
+    }
+
+    public static void monitor(MeterRegistry registry, ExpiringCache<?, ?> cache, String cacheName) {
+        new ExpiringCacheMetrics(cache, cacheName).bindTo(registry);
+    }
+
+    @Override
+    protected Long size() {
+        ExpiringCache<?, ?> cache = getCache();
+        return cache == null ? null : (long) cache.size();
+    }
+
+    @Override
+    protected long hitCount() {
+        ExpiringCache<?, ?> cache = getCache();
+        return cache == null ? 0 : cache.hits();
+    }
+
+    @Override
+    protected Long missCount() {
+        ExpiringCache<?, ?> cache = getCache();
+        return cache == null ? null : cache.misses();
+    }
+
+    @Override
+    protected Long evictionCount() {
+        return null;
+    }
+
+    @Override
+    protected long putCount() {
+        ExpiringCache<?, ?> cache = getCache();
+        return cache == null ? 0 : cache.puts();
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+    }
+}
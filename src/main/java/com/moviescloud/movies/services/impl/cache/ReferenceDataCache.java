@@ -0,0 +1,121 @@
+package com.moviescloud.movies.services.impl.cache;
+
+import com.moviescloud.movies.exceptions.BadRequestException;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.support.PropertyComparator;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Read-through copy of a small, rarely changing table. The whole table is held as an immutable
+ * snapshot with ids in a sorted {@code long[]}, so lookups are a binary search without boxing
+ * and without a database round trip. Writers call {@link #reload(Supplier)} and the snapshot is swapped atomically.
+ * <p>
+ * Callers get copies made by {@code copier}, so changing a returned row never changes the cache.
+ */
+public class ReferenceDataCache<T> {
+    private final Class<T> type;
+    private final ToLongFunction<T> idGetter;
+    private final UnaryOperator<T> copier;
+    private volatile Snapshot<T> snapshot;
+
+    public ReferenceDataCache(Class<T> type, ToLongFunction<T> idGetter, UnaryOperator<T> copier) {
+        this.type = type;
+        this.idGetter = idGetter;
+        this.copier = copier;
+        this.snapshot = new Snapshot<>(new long[0], Collections.emptyList());
+    }
+
+    /**
+     * Reads the table again from {@code source}, after the commit when called inside a transaction, so the
+     * change being written is visible to the read. Reloads are serialized with their reads, so the last
+     * snapshot installed is always from the latest read.
+     */
+    public void reload(Supplier<? extends Iterable<T>> source) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    load(source);
+                }
+            });
+        } else {
+            load(source);
+        }
+    }
+
+    private synchronized void load(Supplier<? extends Iterable<T>> source) {
+        List<T> items = new ArrayList<>();
+        source.get().forEach(row -> items.add(copier.apply(row)));
+        items.sort(Comparator.comparingLong(idGetter));
+        long[] ids = new long[items.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = idGetter.applyAsLong(items.get(i));
+        }
+        snapshot = new Snapshot<>(ids, Collections.unmodifiableList(items));
+    }
+
+    public Optional<T> get(long id) {
+        Snapshot<T> current = snapshot;
+        int index = Arrays.binarySearch(current.ids, id);
+        return index < 0 ? Optional.empty() : Optional.of(copier.apply(current.items.get(index)));
+    }
+
+    public Optional<T> find(Predicate<T> predicate) {
+        return snapshot.items.stream().filter(predicate).findFirst().map(copier);
+    }
+
+    public Page<T> findAll(Pageable pageable) {
+        List<T> items = snapshot.items;
+        if (pageable.getSort().isSorted()) {
+            items = new ArrayList<>(items);
+            items.sort(comparator(pageable.getSort()));
+        }
+        if (pageable.isUnpaged()) return new PageImpl<>(copies(items));
+
+        int from = (int) Math.min(pageable.getOffset(), items.size());
+        int to = Math.min(from + pageable.getPageSize(), items.size());
+        return new PageImpl<>(copies(items.subList(from, to)), pageable, items.size());
+    }
+
+    public int size() {
+        return snapshot.ids.length;
+    }
+
+    private List<T> copies(List<T> items) {
+        return items.stream().map(copier).collect(Collectors.toList());
+    }
+
+    private Comparator<T> comparator(Sort sort) {
+        Comparator<T> comparator = null;
+        for (Sort.Order order : sort) {
+            if (BeanUtils.getPropertyDescriptor(type, order.getProperty()) == null) {
+                throw new BadRequestException("Unknown sort property: " + order.getProperty());
+            }
+            Comparator<T> next = new PropertyComparator<>(order.getProperty(), order.isIgnoreCase(), order.isAscending());
+            comparator = comparator == null ? next : comparator.thenComparing(next);
+        }
+        return comparator;
+    }
+
+    private static final class Snapshot<T> {
+        private final long[] ids;
+        private final List<T> items;
+
+        private Snapshot(long[] ids, List<T> items) {
+            this.ids = ids;
+            this.items = items;
+        }
+    }
+}
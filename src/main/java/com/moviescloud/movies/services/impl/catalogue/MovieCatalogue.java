@@ -0,0 +1,392 @@
+package com.moviescloud.movies.services.impl.catalogue;
+
+import com.moviescloud.movies.dto.MovieFilter;
+import com.moviescloud.movies.services.events.MovieDeletedEvent;
+import com.moviescloud.movies.services.events.MovieSavedEvent;
+import com.moviescloud.movies.services.events.MovieVotedEvent;
+import com.moviescloud.movies.services.impl.search.MovieTitleIndex;
+import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory copy of the movie listing filters, enabled with {@code movies.catalogue.enabled}. Every movie gets
+ * an ordinal, and every genre, country, type and year gets a bitmap of the ordinals of its movies. A filter is answered
+ * by OR-ing the bitmaps of the values within a group and AND-ing the groups. Only the ids of the requested page
+ * are selected, so the database reads just those rows.
+ * <p>
+ * The catalogue is loaded at start-up and kept up to date after commit from movie events. An edited movie keeps
+ * its ordinal; ordinals of deleted movies are not reused until the next start. Events that arrive before the
+ * load has been swapped in are journaled, and their movies are read again afterwards, since the load may have
+ * read them before the change. Rows are read without the lock held, so a read can be overtaken: a movie deleted
+ * meanwhile is not put back, and ratings read with fewer votes than the catalogue has are not applied, since votes
+ * only grow.
+ */
+@Component
+@ConditionalOnProperty(name = "movies.catalogue.enabled", havingValue = "true")
+@Slf4j
+@RequiredArgsConstructor
+public class MovieCatalogue {
+    private static final Set<String> SORTABLE = new HashSet<>(Arrays.asList("id", "rating", "weightedRating", "year"));
+    private static final BitSet EMPTY = new BitSet();
+    private static final String MOVIE_COLUMNS = "select m.id, m.type_id, m.year, m.rating, m.weighted_rating, m.number_of_votes from movie m";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final MovieTitleIndex movieTitleIndex;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final BitSet live = new BitSet();
+    private final Map<Long, BitSet> genres = new HashMap<>();
+    private final Map<Long, BitSet> countries = new HashMap<>();
+    private final Map<Long, BitSet> types = new HashMap<>();
+    private final Map<String, BitSet> years = new HashMap<>();
+    private long[] ids = new long[1024];
+    private double[] ratings = new double[1024];
+    private double[] weightedRatings = new double[1024];
+    private double[] votes = new double[1024];
+    private String[] yearValues = new String[1024];
+    private int size;
+    // Movies changed since the running load started reading, null when none is running
+    private Set<Long> journal = new HashSet<>();
+    // Movies deleted while a refresh was reading, which it must not put back; cleared once no refresh is reading
+    private final Set<Long> deleted = new HashSet<>();
+    private int reading;
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            if (journal == null) journal = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Rows rows = read(new MapSqlParameterSource(), false);
+        Set<Long> changed;
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            live.clear();
+            genres.clear();
+            countries.clear();
+            types.clear();
+            years.clear();
+            size = 0;
+            apply(rows);
+            changed = journal;
+            journal = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (!changed.isEmpty()) refresh(new ArrayList<>(changed));
+        log.info("Movie catalogue built: {} movies, {} bitmaps in {} ms, {} changed meanwhile", live.cardinality(),
+                genres.size() + countries.size() + types.size() + years.size(), System.currentTimeMillis() - start,
+                changed.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSaved(MovieSavedEvent event) {
+        if (event.getMovies().isEmpty() || journaled(event.getIds())) return;
+        refresh(event.getIds());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVoted(MovieVotedEvent event) {
+        if (journaled(Collections.singletonList(event.getMovieId()))) return;
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "select rating, weighted_rating, number_of_votes from movie where id = :id",
+                new MapSqlParameterSource("id", event.getMovieId()));
+        if (rows.isEmpty()) return;
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(event.getMovieId());
+            if (ordinal == null) return;
+            rate(ordinal, ((Number) rows.get(0).get("rating")).doubleValue(),
+                    ((Number) rows.get(0).get("weighted_rating")).doubleValue(),
+                    ((Number) rows.get(0).get("number_of_votes")).doubleValue());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeleted(MovieDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (reading > 0) deleted.add(event.getMovieId());
+            if (journal != null) journal.add(event.getMovieId());
+            else remove(event.getMovieId());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return ids of the requested page of movies matching the filter, in page order, or {@code null} if the
+     * catalogue cannot answer (not loaded yet, unsupported sort, or a keyword the title index cannot resolve)
+     */
+    public Page<Long> find(MovieFilter filter, Pageable pageable) {
+        if (!ready || pageable.isUnpaged()) return null;
+        Iterator<Sort.Order> orders = pageable.getSort().iterator();
+        Sort.Order order = orders.hasNext() ? orders.next() : Sort.Order.asc("id");
+        if (orders.hasNext() || !SORTABLE.contains(order.getProperty())) return null;
+        List<Long> keywordIds = null;
+        if (filter.getKeyword() != null && !filter.getKeyword().isBlank()) {
+            keywordIds = movieTitleIndex.search(filter.getKeyword());
+            if (keywordIds == null) return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            BitSet match = (BitSet) live.clone();
+            if (filter.getGenres() != null && !filter.getGenres().isEmpty()) match.and(union(genres, filter.getGenres()));
+            if (filter.getCountries() != null && !filter.getCountries().isEmpty()) match.and(union(countries, filter.getCountries()));
+            if (filter.getType() != null) match.and(types.getOrDefault(filter.getType(), EMPTY));
+            if (filter.getYears() != null && !filter.getYears().isEmpty()) match.and(union(years, filter.getYears()));
+            if (keywordIds != null) {
+                BitSet keyword = new BitSet();
+                keywordIds.forEach(id -> {
+                    Integer ordinal = ordinals.get(id);
+                    if (ordinal != null) keyword.set(ordinal);
+                });
+                match.and(keyword);
+            }
+            return new PageImpl<>(page(match, comparator(order), pageable), pageable, match.cardinality());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keeps the best {@code offset + size} ordinals in a bounded heap, so only the page is ever sorted.
+     */
+    private List<Long> page(BitSet match, Comparator<Integer> comparator, Pageable pageable) {
+        long end = pageable.getOffset() + pageable.getPageSize();
+        if (pageable.getOffset() >= match.cardinality()) return Collections.emptyList();
+        int limit = (int) Math.min(end, match.cardinality());
+        PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, comparator.reversed());
+        for (int ordinal = match.nextSetBit(0); ordinal >= 0; ordinal = match.nextSetBit(ordinal + 1)) {
+            heap.add(ordinal);
+            if (heap.size() > limit) heap.poll();
+        }
+        List<Integer> best = new ArrayList<>(heap);
+        best.sort(comparator);
+        List<Long> page = new ArrayList<>(pageable.getPageSize());
+        for (int i = (int) pageable.getOffset(); i < best.size(); i++) {
+            page.add(ids[best.get(i)]);
+        }
+        return page;
+    }
+
+    /**
+     * Same order as the SQL listing: nulls last in both directions (see {@code KeysetRepository}), ties broken by id.
+     */
+    private Comparator<Integer> comparator(Sort.Order order) {
+        Comparator<Integer> key;
+        switch (order.getProperty()) {
+            case "rating":
+                key = Comparator.comparingDouble(ordinal -> ratings[ordinal]);
+                break;
+            case "weightedRating":
+                key = Comparator.comparingDouble(ordinal -> weightedRatings[ordinal]);
+                break;
+            case "year":
+                Comparator<String> years = order.isAscending() ? Comparator.naturalOrder() : Comparator.reverseOrder();
+                return Comparator.comparing((Integer ordinal) -> yearValues[ordinal], Comparator.nullsLast(years))
+                        .thenComparingLong(ordinal -> ids[ordinal]);
+            default:
+                key = Comparator.comparingLong(ordinal -> ids[ordinal]);
+        }
+        if (order.isDescending()) key = key.reversed();
+        return key.thenComparingLong(ordinal -> ids[ordinal]);
+    }
+
+    /**
+     * @return whether a load is running, in which case the movies are journaled for it instead
+     */
+    private boolean journaled(Collection<Long> movieIds) {
+        lock.writeLock().lock();
+        try {
+            if (journal == null) return false;
+            journal.addAll(movieIds);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the movies again and replaces them, keeping their ordinals; movies that are gone, or were deleted
+     * while they were being read, are removed.
+     */
+    private void refresh(List<Long> movieIds) {
+        lock.writeLock().lock();
+        try {
+            reading++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Rows rows = null;
+        try {
+            rows = read(new MapSqlParameterSource("ids", movieIds), true);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (rows != null) replace(movieIds, rows);
+                if (--reading == 0) deleted.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Called with the write lock held.
+     */
+    private void replace(List<Long> movieIds, Rows rows) {
+        rows.movies.removeIf(row -> deleted.contains(row.id));
+        Set<Long> found = new HashSet<>();
+        rows.movies.forEach(row -> found.add(row.id));
+        for (long id : movieIds) {
+            Integer ordinal = ordinals.get(id);
+            if (!found.contains(id)) remove(id);
+            else if (ordinal != null) clear(ordinal);
+        }
+        apply(rows);
+    }
+
+    /**
+     * Reads movies with their genres and countries before the write lock is taken, so readers
+     * only wait for the in-memory part.
+     */
+    private Rows read(SqlParameterSource params, boolean selected) {
+        Rows rows = new Rows();
+        jdbcTemplate.query(MOVIE_COLUMNS + (selected ? " where m.id in (:ids)" : ""), params, rs -> {
+            rows.movies.add(toRow(rs));
+        });
+        String movies = selected ? " where movie_id in (:ids)" : "";
+        jdbcTemplate.query("select movie_id, genres_id from movie_genres" + movies, params, rs -> {
+            rows.genres.add(new long[]{rs.getLong(1), rs.getLong(2)});
+        });
+        jdbcTemplate.query("select movie_id, countries_id from movie_countries" + movies, params, rs -> {
+            rows.countries.add(new long[]{rs.getLong(1), rs.getLong(2)});
+        });
+        return rows;
+    }
+
+    /**
+     * Called with the write lock held.
+     */
+    private void apply(Rows rows) {
+        rows.movies.forEach(this::put);
+        rows.genres.forEach(link -> mark(genres, link[1], link[0]));
+        rows.countries.forEach(link -> mark(countries, link[1], link[0]));
+    }
+
+    private static MovieRow toRow(ResultSet rs) throws SQLException {
+        long type = rs.getLong("type_id");
+        Long typeId = rs.wasNull() ? null : type;
+        String year = rs.getString("year");
+        return new MovieRow(rs.getLong("id"), typeId, year == null ? null : year.intern(),
+                rs.getDouble("rating"), rs.getDouble("weighted_rating"), rs.getDouble("number_of_votes"));
+    }
+
+    private void put(MovieRow row) {
+        long id = row.id;
+        Integer existing = ordinals.get(id);
+        int ordinal = existing != null ? existing : size++;
+        if (ordinal == ids.length) {
+            int capacity = ids.length * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            ratings = Arrays.copyOf(ratings, capacity);
+            weightedRatings = Arrays.copyOf(weightedRatings, capacity);
+            yearValues = Arrays.copyOf(yearValues, capacity);
+            votes = Arrays.copyOf(votes, capacity);
+        }
+        ordinals.put(id, ordinal);
+        ids[ordinal] = id;
+        if (existing == null) votes[ordinal] = -1;
+        rate(ordinal, row.rating, row.weightedRating, row.numberOfVotes);
+        yearValues[ordinal] = row.year;
+        live.set(ordinal);
+        if (row.typeId != null) types.computeIfAbsent(row.typeId, t -> new BitSet()).set(ordinal);
+        if (row.year != null) years.computeIfAbsent(row.year, y -> new BitSet()).set(ordinal);
+    }
+
+    /**
+     * Votes only grow, so ratings read with fewer votes than already applied lost a race with a later read.
+     */
+    private void rate(int ordinal, double rating, double weightedRating, double numberOfVotes) {
+        if (numberOfVotes < votes[ordinal]) return;
+        ratings[ordinal] = rating;
+        weightedRatings[ordinal] = weightedRating;
+        votes[ordinal] = numberOfVotes;
+    }
+
+    private void mark(Map<Long, BitSet> bitmaps, long value, long movieId) {
+        Integer ordinal = ordinals.get(movieId);
+        if (ordinal != null) bitmaps.computeIfAbsent(value, v -> new BitSet()).set(ordinal);
+    }
+
+    private void remove(long id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal != null) clear(ordinal);
+    }
+
+    /**
+     * Clears the ordinal from every bitmap; cheaper than remembering which ones it was in.
+     */
+    private void clear(int ordinal) {
+        live.clear(ordinal);
+        genres.values().forEach(bitmap -> bitmap.clear(ordinal));
+        countries.values().forEach(bitmap -> bitmap.clear(ordinal));
+        types.values().forEach(bitmap -> bitmap.clear(ordinal));
+        years.values().forEach(bitmap -> bitmap.clear(ordinal));
+    }
+
+    @AllArgsConstructor
+    private static final class MovieRow {
+        private final long id;
+        private final Long typeId;
+        private final String year;
+        private final double rating;
+        private final double weightedRating;
+        private final double numberOfVotes;
+    }
+
+    private static final class Rows {
+        private final List<MovieRow> movies = new ArrayList<>();
+        private final List<long[]> genres = new ArrayList<>();
+        private final List<long[]> countries = new ArrayList<>();
+    }
+
+    private static <K> BitSet union(Map<K, BitSet> bitmaps, Collection<K> keys) {
+        BitSet union = new BitSet();
+        for (K key : keys) {
+            BitSet bitmap = bitmaps.get(key);
+            if (bitmap != null) union.or(bitmap);
+        }
+        return union;
+    }
+}
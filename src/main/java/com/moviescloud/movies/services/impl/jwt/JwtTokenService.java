@@ -4,41 +4,88 @@ import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTVerificationException;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.moviescloud.movies.services.impl.cache.ExpiringCache;
+import com.moviescloud.movies.services.impl.cache.ExpiringCacheMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.time.Clock;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Service
 @Slf4j
 public class JwtTokenService {
     @Value("${jwt.validity}")
     private long JWT_TOKEN_VALIDITY;
+    private final Clock clock;
     private final Algorithm hmac512;
     private final JWTVerifier verifier;
+    private final ExpiringCache<String, String> verifiedTokens;
+    private final Timer cachedValidations;
+    private final Timer verifiedValidations;
+    private final Timer rejectedValidations;
 
     @Autowired
-    public JwtTokenService(@Value("${jwt.secret}") final String secret) {
+    public JwtTokenService(@Value("${jwt.secret}") final String secret,
+                           @Value("${jwt.token-cache.max-size}") final int tokenCacheSize,
+                           final MeterRegistry metrics) {
+        this(secret, tokenCacheSize, metrics, Clock.systemUTC());
+    }
+
+    JwtTokenService(final String secret, final int tokenCacheSize, final MeterRegistry metrics, final Clock clock) {
+        this.clock = clock;
         this.hmac512 = Algorithm.HMAC512(secret);
-        this.verifier = JWT.require(this.hmac512).build();
+        this.verifier = ((JWTVerifier.BaseVerification) JWT.require(this.hmac512)).build(clock);
+        this.verifiedTokens = new ExpiringCache<>(0, tokenCacheSize, clock);
+        ExpiringCacheMetrics.monitor(metrics, verifiedTokens, "jwt_tokens");
+        this.cachedValidations = validations(metrics, "cached");
+        this.verifiedValidations = validations(metrics, "verified");
+        this.rejectedValidations = validations(metrics, "rejected");
     }
 
     public String generateToken(final UserDetails userDetails) {
         return JWT.create()
                 .withSubject(userDetails.getUsername())
-                .withExpiresAt(new Date(System.currentTimeMillis() + JWT_TOKEN_VALIDITY))
+                .withExpiresAt(new Date(clock.millis() + JWT_TOKEN_VALIDITY))
                 .sign(this.hmac512);
     }
 
+    /**
+     * Tokens that passed verification are remembered until their {@code exp} claim, so a client
+     * reusing its token skips the signature check. Expired or unknown tokens are always verified.
+     */
     public String validateTokenAndGetEmail(final String token) {
+        final long start = System.nanoTime();
+        final String cached = verifiedTokens.get(token);
+        if (cached != null) {
+            cachedValidations.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached;
+        }
         try {
-            return verifier.verify(token).getSubject();
+            final DecodedJWT jwt = verifier.verify(token);
+            if (jwt.getExpiresAt() != null && jwt.getSubject() != null) {
+                verifiedTokens.put(token, jwt.getSubject(), jwt.getExpiresAt().getTime());
+            }
+            verifiedValidations.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return jwt.getSubject();
         } catch (final JWTVerificationException verificationEx) {
+            rejectedValidations.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
             log.warn("token invalid: {}", verificationEx.getMessage());
             return null;
         }
     }
+
+    private static Timer validations(final MeterRegistry metrics, final String result) {
+        return Timer.builder("jwt.validation")
+                .description("Token validation time: cached, verified signature or rejected")
+                .tag("result", result)
+                .register(metrics);
+    }
 }
@@ -1,18 +1,82 @@
 package com.moviescloud.movies.services.impl.jwt;
 
+import com.moviescloud.movies.entities.Privilege;
+import com.moviescloud.movies.entities.User;
 import com.moviescloud.movies.exceptions.UnauthorizedException;
 import com.moviescloud.movies.repositories.UserRepository;
-import lombok.RequiredArgsConstructor;
+import com.moviescloud.movies.services.events.UserChangedEvent;
+import com.moviescloud.movies.services.impl.cache.ExpiringCache;
+import com.moviescloud.movies.services.impl.cache.ExpiringCacheMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
 public class JwtUserDetailsService {
     final UserRepository userRepository;
+    private final ExpiringCache<String, User> principals;
+    // Bumped by every eviction; a principal read before an eviction is not cached after it
+    private long generation;
+
+    @Autowired
+    public JwtUserDetailsService(UserRepository userRepository,
+                                 @Value("${jwt.principal-cache.ttl}") long principalTtl,
+                                 @Value("${jwt.principal-cache.max-size}") int principalCacheSize,
+                                 MeterRegistry metrics) {
+        this.userRepository = userRepository;
+        this.principals = new ExpiringCache<>(principalTtl, principalCacheSize);
+        ExpiringCacheMetrics.monitor(metrics, principals, "jwt_principals");
+    }
 
     public UserDetails loadUserByEmail(String email) {
         return userRepository.findByEmail(email).orElseThrow(
                 () -> new UnauthorizedException("Wrong email address or password!"));
     }
+
+    /**
+     * Same as {@link #loadUserByEmail(String)}, but reuses the principal built for a previous
+     * request with the same token subject while it is fresh. Every request gets its own copy of it.
+     */
+    public UserDetails loadCachedUserByEmail(String email) {
+        User user = principals.get(email);
+        if (user == null) {
+            long readGeneration = generation();
+            user = copy((User) loadUserByEmail(email));
+            cache(email, user, readGeneration);
+        }
+        return copy(user);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event.getUserId());
+    }
+
+    public synchronized void evict(long userId) {
+        generation++;
+        principals.removeIf(user -> user.getId() == userId);
+    }
+
+    private synchronized long generation() {
+        return generation;
+    }
+
+    private synchronized void cache(String email, User user, long readGeneration) {
+        if (generation == readGeneration) principals.put(email, user);
+    }
+
+    private static User copy(User user) {
+        List<Privilege> privileges = user.getPrivileges().stream()
+                .map(privilege -> new Privilege(privilege.getId(), privilege.getPrivilegeName()))
+                .collect(Collectors.toList());
+        return new User(user.getId(), user.getEmail(), user.getPassword(), user.getFirstName(), user.getLastName(),
+                user.getBirthDay() == null ? null : new Date(user.getBirthDay().getTime()), privileges);
+    }
 }
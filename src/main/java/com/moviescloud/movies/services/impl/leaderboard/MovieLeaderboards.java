@@ -0,0 +1,372 @@
+package com.moviescloud.movies.services.impl.leaderboard;
+
+import com.moviescloud.movies.dto.LeaderboardEntry;
+import com.moviescloud.movies.exceptions.ServiceUnavailableException;
+import com.moviescloud.movies.services.events.MovieDeletedEvent;
+import com.moviescloud.movies.services.events.MovieSavedEvent;
+import com.moviescloud.movies.services.events.MovieVotedEvent;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory top lists of movies by weighted rating, one per genre, country and type. Every list holds
+ * up to twice {@code movies.leaderboard.size} movies with at least one vote, so reading one never touches
+ * the database. Lists are built at start-up with one ranked query per dimension and updated after commit
+ * when a movie is saved, voted for or deleted.
+ * <p>
+ * A list that has overflowed is truncated: movies left out of it rank below its last entry. When deletions
+ * shrink a truncated list below {@code movies.leaderboard.size}, it is refilled from the database.
+ * <p>
+ * The database is only read without the lock held. Movies changed while the lists are being built or refilled
+ * are journaled and read again once the new lists are in place, since the read may predate the change.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class MovieLeaderboards {
+    public enum Dimension {
+        GENRE("g.genres_id", "movie m join movie_genres g on g.movie_id = m.id"),
+        COUNTRY("c.countries_id", "movie m join movie_countries c on c.movie_id = m.id"),
+        TYPE("m.type_id", "movie m");
+
+        private final String column;
+        private final String from;
+
+        Dimension(String column, String from) {
+            this.column = column;
+            this.from = from;
+        }
+    }
+
+    private static final Comparator<LeaderboardEntry> ORDER = Comparator
+            .comparingDouble(LeaderboardEntry::getWeightedRating).reversed()
+            .thenComparing(Comparator.comparingLong(LeaderboardEntry::getId).reversed());
+    private static final String COLUMNS =
+            "m.id, m.name_ru, m.name_en, m.poster_url, m.year, m.rating, m.weighted_rating, m.number_of_votes";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Value("${movies.leaderboard.size:100}")
+    private int size;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Key, Board> boards = new HashMap<>();
+    private final Map<Long, Placement> placements = new HashMap<>();
+    // One per running build or refill: movies changed since it started reading
+    private final List<Set<Long>> journals = new ArrayList<>();
+    // Movies deleted while an update was reading, which it must not place again; cleared once no update is reading
+    private final Set<Long> deleted = new HashSet<>();
+    private int reading;
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Set<Long> journal = startJournal();
+        int capacity = capacity();
+        Map<Key, Board> newBoards = new HashMap<>();
+        Map<Long, Placement> newPlacements = new HashMap<>();
+        for (Dimension dimension : Dimension.values()) {
+            jdbcTemplate.query(ranked(dimension, false), new MapSqlParameterSource("limit", capacity + 1), rs -> {
+                Key key = new Key(dimension, rs.getLong("board"));
+                Board board = newBoards.computeIfAbsent(key, k -> new Board());
+                if (board.entries.size() == capacity) {
+                    board.truncated = true;
+                    return;
+                }
+                LeaderboardEntry row = toEntry(rs);
+                Placement placement = newPlacements.computeIfAbsent(row.getId(), id -> new Placement(row));
+                board.entries.add(placement.entry);
+                placement.keys.add(key);
+            });
+        }
+
+        lock.writeLock().lock();
+        try {
+            boards.clear();
+            boards.putAll(newBoards);
+            placements.clear();
+            placements.putAll(newPlacements);
+            journals.remove(journal);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Movie leaderboards built: {} lists, {} movies in {} ms, {} changed meanwhile",
+                newBoards.size(), newPlacements.size(), System.currentTimeMillis() - start, journal.size());
+        update(new ArrayList<>(journal));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSaved(MovieSavedEvent event) {
+        update(event.getIds());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onVoted(MovieVotedEvent event) {
+        update(Collections.singletonList(event.getMovieId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeleted(MovieDeletedEvent event) {
+        Set<Key> stale = new HashSet<>();
+        lock.writeLock().lock();
+        try {
+            journals.forEach(journal -> journal.add(event.getMovieId()));
+            if (reading > 0) deleted.add(event.getMovieId());
+            if (!ready) return;
+            remove(event.getMovieId(), stale);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        refill(stale);
+    }
+
+    /**
+     * @return up to {@code limit} best rated movies of the group, never more than {@code movies.leaderboard.size}
+     */
+    public List<LeaderboardEntry> top(Dimension dimension, long id, int limit) {
+        if (!ready) throw new ServiceUnavailableException("Movie leaderboards are being built, try again later");
+        int count = Math.min(limit, size);
+        lock.readLock().lock();
+        try {
+            Board board = boards.get(new Key(dimension, id));
+            if (board == null) return Collections.emptyList();
+            List<LeaderboardEntry> top = new ArrayList<>(Math.min(count, board.entries.size()));
+            for (LeaderboardEntry entry : board.entries) {
+                if (top.size() == count) break;
+                top.add(entry);
+            }
+            return top;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Re-reads the given movies and moves them between lists. Rows are read before the lock is taken,
+     * so readers only wait for the in-memory part; a row read just before the movie was deleted is dropped.
+     */
+    private void update(List<Long> ids) {
+        if (ids.isEmpty()) return;
+        if (!ready) {
+            lock.writeLock().lock();
+            try {
+                journals.forEach(journal -> journal.addAll(ids));
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            reading++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Map<Long, LeaderboardEntry> entries = new HashMap<>();
+        Map<Long, Set<Key>> keys = new HashMap<>();
+        Set<Key> stale = new HashSet<>();
+        boolean complete = false;
+        try {
+            read(ids, entries, keys);
+            complete = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (complete) apply(ids, entries, keys, stale);
+                if (--reading == 0) deleted.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        refill(stale);
+    }
+
+    private void read(List<Long> ids, Map<Long, LeaderboardEntry> entries, Map<Long, Set<Key>> keys) {
+        MapSqlParameterSource params = new MapSqlParameterSource("ids", ids);
+        jdbcTemplate.query("select " + COLUMNS + ", m.type_id from movie m where m.id in (:ids) and m.number_of_votes > 0", params, rs -> {
+            LeaderboardEntry entry = toEntry(rs);
+            entries.put(entry.getId(), entry);
+            long type = rs.getLong("type_id");
+            if (!rs.wasNull()) keys.computeIfAbsent(entry.getId(), id -> new HashSet<>()).add(new Key(Dimension.TYPE, type));
+        });
+        if (!entries.isEmpty()) {
+            params.addValue("ids", entries.keySet());
+            jdbcTemplate.query("select movie_id, genres_id from movie_genres where movie_id in (:ids)", params, rs -> {
+                keys.computeIfAbsent(rs.getLong(1), id -> new HashSet<>()).add(new Key(Dimension.GENRE, rs.getLong(2)));
+            });
+            jdbcTemplate.query("select movie_id, countries_id from movie_countries where movie_id in (:ids)", params, rs -> {
+                keys.computeIfAbsent(rs.getLong(1), id -> new HashSet<>()).add(new Key(Dimension.COUNTRY, rs.getLong(2)));
+            });
+        }
+    }
+
+    private void apply(List<Long> ids, Map<Long, LeaderboardEntry> entries, Map<Long, Set<Key>> keys, Set<Key> stale) {
+        journals.forEach(journal -> journal.addAll(ids));
+        for (Long id : ids) {
+            LeaderboardEntry entry = deleted.contains(id) ? null : entries.get(id);
+            Placement current = placements.get(id);
+            // votes only grow, so fewer votes than in the list means this read lost a race with a later one
+            if (entry != null && current != null && entry.getNumberOfVotes() < current.entry.getNumberOfVotes()) continue;
+            remove(id, stale);
+            if (entry != null) place(entry, keys.getOrDefault(id, Collections.emptySet()), stale);
+        }
+    }
+
+    private void remove(long id, Set<Key> stale) {
+        Placement placement = placements.remove(id);
+        if (placement == null) return;
+        for (Key key : placement.keys) {
+            Board board = boards.get(key);
+            board.entries.remove(placement.entry);
+            if (board.truncated && board.entries.size() < size) stale.add(key);
+        }
+    }
+
+    private void place(LeaderboardEntry entry, Set<Key> keys, Set<Key> stale) {
+        Placement placement = new Placement(entry);
+        for (Key key : keys) {
+            if (stale.contains(key)) continue;
+            Board board = boards.computeIfAbsent(key, k -> new Board());
+            if (board.truncated && !board.entries.isEmpty() && ORDER.compare(entry, board.entries.last()) > 0) continue;
+            board.entries.add(entry);
+            placement.keys.add(key);
+            if (board.entries.size() > capacity()) {
+                LeaderboardEntry dropped = board.entries.pollLast();
+                board.truncated = true;
+                Placement owner = dropped.getId() == entry.getId() ? placement : placements.get(dropped.getId());
+                owner.keys.remove(key);
+                if (owner.keys.isEmpty()) placements.remove(dropped.getId());
+            }
+        }
+        if (!placement.keys.isEmpty()) placements.put(entry.getId(), placement);
+    }
+
+    /**
+     * Reloads the lists from the database, then reads the movies changed meanwhile again.
+     */
+    private void refill(Set<Key> keys) {
+        if (keys.isEmpty()) return;
+        Set<Long> journal = startJournal();
+        int capacity = capacity();
+        Map<Key, Board> fresh = new HashMap<>();
+        for (Key key : keys) {
+            Board board = new Board();
+            MapSqlParameterSource params = new MapSqlParameterSource("limit", capacity + 1).addValue("board", key.getId());
+            jdbcTemplate.query(ranked(key.getDimension(), true), params, rs -> {
+                if (board.entries.size() == capacity) {
+                    board.truncated = true;
+                    return;
+                }
+                board.entries.add(toEntry(rs));
+            });
+            fresh.put(key, board);
+        }
+
+        lock.writeLock().lock();
+        try {
+            fresh.forEach(this::replace);
+            journals.remove(journal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        fresh.forEach((key, board) -> log.info("Movie leaderboard {} {} refilled with {} movies",
+                key.getDimension(), key.getId(), board.entries.size()));
+        update(new ArrayList<>(journal));
+    }
+
+    /**
+     * Swaps in a list read from the database, called with the write lock held. Movies already in other lists
+     * keep their entry, so that every list holds the same instance.
+     */
+    private void replace(Key key, Board read) {
+        Board board = boards.get(key);
+        if (board != null) {
+            for (LeaderboardEntry entry : board.entries) {
+                Placement placement = placements.get(entry.getId());
+                placement.keys.remove(key);
+                if (placement.keys.isEmpty()) placements.remove(entry.getId());
+            }
+        }
+        Board fresh = new Board();
+        fresh.truncated = read.truncated;
+        for (LeaderboardEntry row : read.entries) {
+            Placement placement = placements.computeIfAbsent(row.getId(), id -> new Placement(row));
+            fresh.entries.add(placement.entry);
+            placement.keys.add(key);
+        }
+        boards.put(key, fresh);
+    }
+
+    private Set<Long> startJournal() {
+        Set<Long> journal = new HashSet<>();
+        lock.writeLock().lock();
+        try {
+            journals.add(journal);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return journal;
+    }
+
+    private int capacity() {
+        return size * 2;
+    }
+
+    private static String ranked(Dimension dimension, boolean single) {
+        return "select * from (" +
+                "select " + dimension.column + " as board, " + COLUMNS + ", " +
+                "row_number() over (partition by " + dimension.column + " order by m.weighted_rating desc, m.id desc) as rn " +
+                "from " + dimension.from + " " +
+                "where m.number_of_votes > 0 and " + dimension.column + (single ? " = :board" : " is not null") +
+                ") r where rn <= :limit order by board, rn";
+    }
+
+    private static LeaderboardEntry toEntry(ResultSet rs) throws SQLException {
+        return new LeaderboardEntry(rs.getLong("id"), rs.getString("name_ru"), rs.getString("name_en"),
+                rs.getString("poster_url"), rs.getString("year"), rs.getDouble("rating"),
+                rs.getDouble("weighted_rating"), rs.getDouble("number_of_votes"));
+    }
+
+    @Getter
+    @EqualsAndHashCode
+    @AllArgsConstructor
+    private static final class Key {
+        private final Dimension dimension;
+        private final long id;
+    }
+
+    private static final class Board {
+        private final TreeSet<LeaderboardEntry> entries = new TreeSet<>(ORDER);
+        private boolean truncated;
+    }
+
+    /**
+     * Lists a movie is in. All of them hold the same entry instance, which is what they are sorted and searched by.
+     */
+    private static final class Placement {
+        private final LeaderboardEntry entry;
+        private final Set<Key> keys = new HashSet<>();
+
+        Placement(LeaderboardEntry entry) {
+            this.entry = entry;
+        }
+    }
+}
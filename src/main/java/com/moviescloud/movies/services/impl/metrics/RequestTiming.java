@@ -0,0 +1,141 @@
+package com.moviescloud.movies.services.impl.metrics;
+
+import java.util.Locale;
+
+/**
+ * Time spent by the current request per phase, and its SQL statement count. Created by
+ * {@code RequestTimingFilter} only for requests that report their timing, and bound to the request thread;
+ * everywhere else {@link #current()} is {@code null} and instrumentation points do nothing else.
+ * <p>
+ * Phases are exclusive: time spent in statements while authenticating or serializing (a principal lookup,
+ * a lazy collection) counts as {@link Phase#DB} only. What is left of the total is reported as {@code app}.
+ * Work done on other threads, such as the body of a streamed response, is not included.
+ * <p>
+ * The {@code Server-Timing} header is only sent to callers holding {@link #AUTHORITY}, the privilege that also
+ * guards the metrics endpoint; anyone else could otherwise read database timings and statement counts.
+ */
+public final class RequestTiming {
+    public static final String SERVER_TIMING = "Server-Timing";
+    public static final String AUTHORITY = "GET_METRICS";
+
+    public enum Phase {
+        AUTH("auth", "Authentication"),
+        DB("db", "SQL and connection acquisition"),
+        SERIALIZATION("ser", "JSON serialization");
+
+        private final String metric;
+        private final String description;
+
+        Phase(String metric, String description) {
+            this.metric = metric;
+            this.description = description;
+        }
+    }
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long start = System.nanoTime();
+    private final long[] nanos = new long[Phase.values().length];
+    private final boolean header;
+    private int statements;
+    private boolean trusted;
+    private boolean headerWritten;
+
+    private RequestTiming(boolean header) {
+        this.header = header;
+    }
+
+    public static RequestTiming start(boolean header) {
+        RequestTiming timing = new RequestTiming(header);
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return a mark to pass to {@link #exit(Phase, long)} when the phase ends
+     */
+    public long enter() {
+        return System.nanoTime() - nanos[Phase.DB.ordinal()];
+    }
+
+    public void exit(Phase phase, long mark) {
+        nanos[phase.ordinal()] += System.nanoTime() - nanos[Phase.DB.ordinal()] - mark;
+    }
+
+    public void connection(long nanos) {
+        this.nanos[Phase.DB.ordinal()] += nanos;
+    }
+
+    public void statement(long nanos) {
+        this.nanos[Phase.DB.ordinal()] += nanos;
+        statements++;
+    }
+
+    /**
+     * Called once the caller is authenticated.
+     */
+    public void trust(boolean trusted) {
+        this.trusted = trusted;
+    }
+
+    /**
+     * @return whether {@link #takeServerTiming()} will still return the header
+     */
+    public boolean wantsHeader() {
+        return header && trusted && !headerWritten;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    /**
+     * The {@code Server-Timing} value once, for whoever commits the response first: the JSON converter
+     * right before it writes the body, or the filter for responses without one.
+     */
+    public String takeServerTiming() {
+        if (!wantsHeader()) return null;
+        headerWritten = true;
+        long total = System.nanoTime() - start;
+        StringBuilder value = new StringBuilder();
+        for (Phase phase : Phase.values()) {
+            value.append(phase.metric).append(";dur=").append(millis(nanos[phase.ordinal()]))
+                    .append(";desc=\"").append(phase.description);
+            if (phase == Phase.DB) value.append(", ").append(statements).append(statements == 1 ? " statement" : " statements");
+            value.append("\", ");
+        }
+        value.append("app;dur=").append(millis(app(total))).append(", total;dur=").append(millis(total));
+        return value.toString();
+    }
+
+    /**
+     * One line of {@code key=value} pairs, durations in milliseconds.
+     */
+    public String logLine(String method, String uri, int status) {
+        long total = System.nanoTime() - start;
+        StringBuilder line = new StringBuilder("method=").append(method).append(" uri=").append(uri)
+                .append(" status=").append(status).append(" total_ms=").append(millis(total));
+        for (Phase phase : Phase.values()) {
+            line.append(' ').append(phase.metric).append("_ms=").append(millis(nanos[phase.ordinal()]));
+        }
+        return line.append(" app_ms=").append(millis(app(total))).append(" sql=").append(statements).toString();
+    }
+
+    private long app(long total) {
+        long app = total;
+        for (long phase : nanos) app -= phase;
+        return Math.max(0, app);
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,100 @@
+package com.moviescloud.movies.services.impl.metrics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Adds the connection wait and the statements of a timed request to its {@link RequestTiming}, whether they
+ * come from Hibernate or a {@code JdbcTemplate}. Connections taken outside a timed request are handed out
+ * unwrapped, so untimed requests and background work pay one thread-local read per connection.
+ */
+public class TimedDataSource extends DelegatingDataSource {
+
+    public TimedDataSource(DataSource target) {
+        super(target);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        RequestTiming timing = RequestTiming.current();
+        if (timing == null) return super.getConnection();
+        long start = System.nanoTime();
+        Connection connection = super.getConnection();
+        timing.connection(System.nanoTime() - start);
+        return connection(connection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        RequestTiming timing = RequestTiming.current();
+        if (timing == null) return super.getConnection(username, password);
+        long start = System.nanoTime();
+        Connection connection = super.getConnection(username, password);
+        timing.connection(System.nanoTime() - start);
+        return connection(connection);
+    }
+
+    private static Connection connection(Connection connection) {
+        return proxy(Connection.class, connection, (proxy, method, args) -> {
+            Object result = invoke(connection, method, args);
+            switch (method.getName()) {
+                case "createStatement":
+                    return proxy(Statement.class, (Statement) result, timed((Statement) result));
+                case "prepareStatement":
+                    return proxy(PreparedStatement.class, (PreparedStatement) result, timed((Statement) result));
+                case "prepareCall":
+                    return proxy(CallableStatement.class, (CallableStatement) result, timed((Statement) result));
+                default:
+                    return result;
+            }
+        });
+    }
+
+    private static InvocationHandler timed(Statement statement) {
+        return (proxy, method, args) -> {
+            RequestTiming timing = method.getName().startsWith("execute") ? RequestTiming.current() : null;
+            if (timing == null) return invoke(statement, method, args);
+            long start = System.nanoTime();
+            try {
+                return invoke(statement, method, args);
+            } finally {
+                timing.statement(System.nanoTime() - start);
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "unwrap":
+                case "isWrapperFor":
+                    return invoke(target, method, args);
+                default:
+                    return handler.invoke(proxy, method, args);
+            }
+        });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.moviescloud.movies.services.impl.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * JSON converter that, for a timed request that reports a {@code Server-Timing} header, serializes into memory
+ * first: the serialization time is then known, and the header can still be sent, before any byte of the body.
+ * Other requests are written straight to the response as before; for a timed one, the serialization time then
+ * includes writing the body out.
+ */
+public class TimedJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    public TimedJsonHttpMessageConverter(ObjectMapper objectMapper) {
+        super(objectMapper);
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        RequestTiming timing = RequestTiming.current();
+        if (timing == null) {
+            super.writeInternal(object, type, outputMessage);
+            return;
+        }
+        long mark = timing.enter();
+        if (!timing.wantsHeader()) {
+            try {
+                super.writeInternal(object, type, outputMessage);
+            } finally {
+                timing.exit(RequestTiming.Phase.SERIALIZATION, mark);
+            }
+            return;
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream(8192);
+        super.writeInternal(object, type, new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return body;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return outputMessage.getHeaders();
+            }
+        });
+        timing.exit(RequestTiming.Phase.SERIALIZATION, mark);
+
+        String serverTiming = timing.takeServerTiming();
+        if (serverTiming != null) outputMessage.getHeaders().add(RequestTiming.SERVER_TIMING, serverTiming);
+        body.writeTo(outputMessage.getBody());
+    }
+}
@@ -0,0 +1,27 @@
+package com.moviescloud.movies.services.impl.rating;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Parameters of the Bayesian average {@code (S + m * C) / (n + m)}: the sum S and number n of scores
+ * of a movie are blended with {@code movies.rating.min-votes} (m) virtual votes of
+ * {@code movies.rating.prior} (C), so a movie with a handful of high scores does not outrank one
+ * with thousands of slightly lower ones.
+ */
+@Component
+@Getter
+public class WeightedRating {
+
+    @Value("${movies.rating.min-votes:25}")
+    private double minVotes;
+
+    @Value("${movies.rating.prior:6.0}")
+    private double prior;
+
+    public double of(double votesScore, double numberOfVotes) {
+        if (numberOfVotes == 0) return 0;
+        return (votesScore + minVotes * prior) / (numberOfVotes + minVotes);
+    }
+}
@@ -0,0 +1,265 @@
+package com.moviescloud.movies.services.impl.search;
+
+import com.moviescloud.movies.repositories.MovieRepository;
+import com.moviescloud.movies.repositories.projections.MovieTitle;
+import com.moviescloud.movies.repositories.specifications.TitleFolding;
+import com.moviescloud.movies.services.events.MovieDeletedEvent;
+import com.moviescloud.movies.services.events.MovieSavedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over {@code Movie.nameRu} and {@code Movie.nameEn}.
+ * Answers "title contains keyword" with the ids of matching movies, so only those rows
+ * have to be read from the database. Returns {@code null} whenever the index cannot
+ * answer (not built yet, or the keyword is too unselective) and the caller should fall back to SQL.
+ * <p>
+ * Saves and deletes that arrive while the index is being rebuilt are applied to the current index and
+ * also journaled; the journal is replayed over the rebuilt index, which may have been read before them.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class MovieTitleIndex {
+    private static final int GRAM = 3;
+    private static final long[] EMPTY = new long[0];
+
+    private final MovieRepository movieRepository;
+
+    @Value("${movies.search.max-matches:10000}")
+    private int maxMatches;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String[]> titles = new HashMap<>();
+    private final Map<String, long[]> postings = new HashMap<>();
+    // Titles saved (null when deleted) since the running rebuild started reading, null when none is running
+    private Map<Long, String[]> journal;
+    private volatile boolean ready;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        journal(new LinkedHashMap<>());
+        try {
+            List<MovieTitle> rows = movieRepository.findAllTitles();
+
+            Map<Long, String[]> newTitles = new HashMap<>(rows.size() * 2);
+            Map<String, LongBuffer> buffers = new HashMap<>();
+            for (MovieTitle row : rows) {
+                String[] folded = foldAll(row.getNameRu(), row.getNameEn());
+                newTitles.put(row.getId(), folded);
+                for (String gram : grams(folded)) {
+                    buffers.computeIfAbsent(gram, g -> new LongBuffer()).add(row.getId());
+                }
+            }
+
+            lock.writeLock().lock();
+            try {
+                titles.clear();
+                titles.putAll(newTitles);
+                postings.clear();
+                buffers.forEach((gram, buffer) -> postings.put(gram, buffer.toSortedArray()));
+                journal.forEach((id, folded) -> {
+                    if (folded == null) removeLocked(id);
+                    else putLocked(id, folded);
+                });
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Movie title index built: {} movies, {} trigrams in {} ms",
+                    newTitles.size(), buffers.size(), System.currentTimeMillis() - start);
+        } finally {
+            journal(null);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSaved(MovieSavedEvent event) {
+        event.getMovies().forEach(movie -> put(movie.getId(), movie.getNameRu(), movie.getNameEn()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeleted(MovieDeletedEvent event) {
+        remove(event.getMovieId());
+    }
+
+    public void put(long id, String nameRu, String nameEn) {
+        String[] folded = foldAll(nameRu, nameEn);
+        lock.writeLock().lock();
+        try {
+            if (journal != null) journal.put(id, folded);
+            putLocked(id, folded);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            if (journal != null) journal.put(id, null);
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return ids of movies whose russian or english title contains the keyword, or {@code null}
+     * if the index cannot answer this keyword.
+     */
+    public List<Long> search(String keyword) {
+        if (!ready || keyword == null) return null;
+        String needle = TitleFolding.fold(keyword.trim());
+        if (needle.isEmpty()) return null;
+
+        lock.readLock().lock();
+        try {
+            return needle.length() < GRAM ? scan(needle) : lookup(needle);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Long> scan(String needle) {
+        List<Long> ids = new ArrayList<>();
+        for (Map.Entry<Long, String[]> entry : titles.entrySet()) {
+            if (matches(entry.getValue(), needle)) {
+                if (ids.size() == maxMatches) return null;
+                ids.add(entry.getKey());
+            }
+        }
+        return ids;
+    }
+
+    private List<Long> lookup(String needle) {
+        Set<String> grams = grams(new String[]{needle});
+        long[][] lists = new long[grams.size()][];
+        int i = 0;
+        for (String gram : grams) {
+            long[] posting = postings.get(gram);
+            if (posting == null) return Collections.emptyList();
+            lists[i++] = posting;
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.length));
+
+        List<Long> ids = new ArrayList<>();
+        candidates:
+        for (long id : lists[0]) {
+            for (int j = 1; j < lists.length; j++) {
+                if (Arrays.binarySearch(lists[j], id) < 0) continue candidates;
+            }
+            if (matches(titles.get(id), needle)) {
+                if (ids.size() == maxMatches) return null;
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private void journal(Map<Long, String[]> journal) {
+        lock.writeLock().lock();
+        try {
+            this.journal = journal;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putLocked(long id, String[] folded) {
+        String[] previous = titles.put(id, folded);
+        if (previous != null) {
+            for (String gram : grams(previous)) {
+                removePosting(gram, id);
+            }
+        }
+        for (String gram : grams(folded)) {
+            postings.put(gram, insert(postings.getOrDefault(gram, EMPTY), id));
+        }
+    }
+
+    private void removeLocked(long id) {
+        String[] previous = titles.remove(id);
+        if (previous != null) {
+            for (String gram : grams(previous)) {
+                removePosting(gram, id);
+            }
+        }
+    }
+
+    private void removePosting(String gram, long id) {
+        long[] posting = postings.get(gram);
+        if (posting == null) return;
+        int index = Arrays.binarySearch(posting, id);
+        if (index < 0) return;
+        if (posting.length == 1) {
+            postings.remove(gram);
+            return;
+        }
+        long[] copy = new long[posting.length - 1];
+        System.arraycopy(posting, 0, copy, 0, index);
+        System.arraycopy(posting, index + 1, copy, index, copy.length - index);
+        postings.put(gram, copy);
+    }
+
+    private static long[] insert(long[] posting, long id) {
+        int index = Arrays.binarySearch(posting, id);
+        if (index >= 0) return posting;
+        index = -index - 1;
+        long[] copy = new long[posting.length + 1];
+        System.arraycopy(posting, 0, copy, 0, index);
+        copy[index] = id;
+        System.arraycopy(posting, index, copy, index + 1, posting.length - index);
+        return copy;
+    }
+
+    private static boolean matches(String[] folded, String needle) {
+        for (String title : folded) {
+            if (title.contains(needle)) return true;
+        }
+        return false;
+    }
+
+    private static String[] foldAll(String nameRu, String nameEn) {
+        List<String> folded = new ArrayList<>(2);
+        if (nameRu != null) folded.add(TitleFolding.fold(nameRu));
+        if (nameEn != null) folded.add(TitleFolding.fold(nameEn));
+        return folded.toArray(new String[0]);
+    }
+
+    private static Set<String> grams(String[] folded) {
+        Set<String> grams = new HashSet<>();
+        for (String title : folded) {
+            for (int i = 0; i + GRAM <= title.length(); i++) {
+                grams.add(title.substring(i, i + GRAM));
+            }
+        }
+        return grams;
+    }
+
+    private static final class LongBuffer {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+
+        long[] toSortedArray() {
+            long[] result = Arrays.copyOf(values, size);
+            Arrays.sort(result);
+            return result;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+-- One-shot upgrade of a database created before votes and reviews had their own tables.
+-- Run it once, after the new version has started and ddl-auto has created the vote table and review.movie_id:
+--   psql -d movies -v ON_ERROR_STOP=1 -f src/main/resources/db/legacy-data.sql
+-- It only copies and fills rows, in one transaction, and skips rows that are already there, so running it
+-- again is harmless. The legacy tables are dropped separately, see legacy-drop.sql.
+
+begin;
+
+-- Votes of movie_vote_users carry no individual score
+insert into vote (movie_id, user_id)
+select distinct l.movie_id, l.vote_users_id from movie_vote_users l
+where not exists (select 1 from vote v where v.movie_id = l.movie_id and v.user_id = l.vote_users_id);
+
+update review set movie_id = l.movie_id
+from movie_reviews l
+where l.reviews_id = review.id and review.movie_id is null;
+
+-- Reviews saved without a creation time; the column is not null since reviews are listed newest first by index
+update review set created_at = coalesce(updated_at, current_timestamp) where created_at is null;
+alter table review alter column created_at set not null;
+
+-- Stored ratings of movies voted for before they were kept. The values are movies.rating.min-votes and
+-- movies.rating.prior; run this statement again with the new values after changing them.
+update movie set rating = votes_score / number_of_votes,
+                 weighted_rating = (votes_score + p.min_votes * p.prior) / (number_of_votes + p.min_votes)
+from (values (cast(25 as double precision), cast(6.0 as double precision))) as p (min_votes, prior)
+where number_of_votes > 0
+  and (rating <> votes_score / number_of_votes
+    or weighted_rating <> (votes_score + p.min_votes * p.prior) / (number_of_votes + p.min_votes));
+
+commit;
@@ -0,0 +1,4 @@
+-- Manual last step after legacy-data.sql: drops the tables it copied from. This can not be undone,
+-- so check the copied votes and reviews and take a backup first.
+drop table if exists movie_vote_users;
+drop table if exists movie_reviews;
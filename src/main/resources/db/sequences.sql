@@ -0,0 +1,3 @@
+-- Runs before Hibernate starts. Databases created while movie ids were an identity column
+-- have movie_id_seq with increment 1, while the entity now allocates ids in blocks of 50.
+alter sequence if exists movie_id_seq increment by 50;
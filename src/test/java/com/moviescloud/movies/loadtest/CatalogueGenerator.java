@@ -0,0 +1,279 @@
+package com.moviescloud.movies.loadtest;
+
+import com.moviescloud.movies.entities.Country;
+import com.moviescloud.movies.entities.Genre;
+import com.moviescloud.movies.entities.Privilege;
+import com.moviescloud.movies.entities.Type;
+import com.moviescloud.movies.repositories.PrivilegeRepository;
+import com.moviescloud.movies.repositories.TypeRepository;
+import com.moviescloud.movies.services.ICountryService;
+import com.moviescloud.movies.services.IGenreService;
+import com.moviescloud.movies.services.ITypeServices;
+import com.moviescloud.movies.services.impl.catalogue.MovieCatalogue;
+import com.moviescloud.movies.services.impl.leaderboard.MovieLeaderboards;
+import com.moviescloud.movies.services.impl.rating.WeightedRating;
+import com.moviescloud.movies.services.impl.search.MovieTitleIndex;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Writes a synthetic catalogue straight through JDBC: movies with genres, countries and a type, staff linked
+ * to movies, users, votes and reviews. Which movies get votes, reviews and cast members is drawn from a Zipf
+ * distribution, so a small head of the catalogue is far more popular than the tail, as it is in production.
+ * Movie ids are shuffled against popularity, so popular rows are spread over the table.
+ * <p>
+ * Vote counters and ratings are computed here and written with the movie rows, the same values the
+ * vote statement would have produced. The same seed always gives the same catalogue.
+ */
+@Slf4j
+public class CatalogueGenerator {
+    public static final String PASSWORD = "load-test";
+    private static final int BATCH = 1000;
+    private static final String[] WORDS_EN = {"night", "river", "last", "summer", "city", "ghost", "road", "winter",
+            "king", "secret", "storm", "garden", "star", "silent", "empire", "island", "shadow", "paper", "iron",
+            "golden", "wild", "lost", "blue", "house", "dream", "fire", "ocean", "glass", "heart", "machine"};
+    private static final String[] WORDS_RU = {"ночь", "река", "последний", "лето", "город", "призрак", "дорога",
+            "зима", "король", "тайна", "буря", "сад", "звезда", "тишина", "империя", "остров", "тень", "бумага",
+            "железо", "золото", "дикий", "потерянный", "синий", "дом", "сон", "огонь", "океан", "стекло", "сердце",
+            "машина"};
+
+    private final ApplicationContext context;
+    private final JdbcTemplate jdbcTemplate;
+    private final IGenreService genreService;
+    private final ICountryService countryService;
+    private final TypeRepository typeRepository;
+    private final PrivilegeRepository privilegeRepository;
+    private final WeightedRating weightedRating;
+    private final String passwordHash;
+
+    public CatalogueGenerator(ApplicationContext context) {
+        this.context = context;
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+        this.genreService = context.getBean(IGenreService.class);
+        this.countryService = context.getBean(ICountryService.class);
+        this.typeRepository = context.getBean(TypeRepository.class);
+        this.privilegeRepository = context.getBean(PrivilegeRepository.class);
+        this.weightedRating = context.getBean(WeightedRating.class);
+        this.passwordHash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+    }
+
+    @Builder
+    public static final class Size {
+        private final int movies;
+        private final int persons;
+        private final int users;
+        private final int reviews;
+        private final int votesPerUser;
+        private final int loadUsers;
+        private final double skew;
+        private final long seed;
+    }
+
+    /**
+     * What the workload needs to know about the generated data.
+     */
+    @Getter
+    public static final class Catalogue {
+        private long[] moviesByPopularity;
+        private long[] personsByPopularity;
+        private final List<Long> genres = new ArrayList<>();
+        private final List<Long> countries = new ArrayList<>();
+        private final List<Long> types = new ArrayList<>();
+        private final List<String> loadUsers = new ArrayList<>();
+        private final String[] keywords = WORDS_EN;
+    }
+
+    /**
+     * Writes the catalogue and rebuilds the caches and in-memory indexes, which were built from an empty
+     * database at start-up.
+     */
+    public Catalogue generate(Size size) {
+        long start = System.currentTimeMillis();
+        Random random = new Random(size.seed);
+        Catalogue catalogue = new Catalogue();
+        referenceData(catalogue);
+
+        Zipf popularity = new Zipf(size.movies, size.skew);
+        catalogue.moviesByPopularity = shuffledIds(1, size.movies, random);
+        Map<Long, Integer> rank = new HashMap<>(size.movies * 2);
+        for (int k = 0; k < size.movies; k++) rank.put(catalogue.moviesByPopularity[k], k);
+
+        long privilege = privilegeRepository.save(new Privilege("CREATE_REVIEW")).getId();
+        int users = size.users + size.loadUsers;
+        batch("insert into users (email, password, first_name, last_name, birth_day) values (?, ?, ?, ?, ?)",
+                users, i -> new Object[]{email(i, size.users), passwordHash, "Имя " + i, "Фамилия " + i,
+                        new Timestamp(random.nextInt(1_000_000_000) * 1000L)});
+        List<Long> userIds = jdbcTemplate.queryForList("select id from users order by id", Long.class);
+        batch("insert into users_privileges (user_id, privileges_id) values (?, ?)",
+                users, i -> new Object[]{userIds.get(i), privilege});
+        for (int i = size.users; i < users; i++) catalogue.loadUsers.add(email(i, size.users));
+
+        double[] quality = new double[size.movies];
+        for (int k = 0; k < size.movies; k++) quality[k] = 3 + random.nextDouble() * 6;
+        long[] votesScore = new long[size.movies];
+        long[] numberOfVotes = new long[size.movies];
+        List<Object[]> votes = new ArrayList<>();
+        for (int user = 0; user < size.users; user++) {
+            Set<Integer> voted = new HashSet<>();
+            int count = Math.min(size.votesPerUser, size.movies);
+            while (voted.size() < count) {
+                int k = popularity.next(random);
+                if (!voted.add(k)) continue;
+                int score = (int) Math.max(1, Math.min(10, Math.round(quality[k] + random.nextGaussian() * 1.5)));
+                votesScore[k] += score;
+                numberOfVotes[k]++;
+                votes.add(new Object[]{catalogue.moviesByPopularity[k], userIds.get(user), score, timestamp(random)});
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        Zipf genres = new Zipf(catalogue.genres.size(), 1.0);
+        Zipf countries = new Zipf(catalogue.countries.size(), 1.0);
+        batch("insert into movie (id, name_ru, name_en, poster_url, trailer_url, description, slogan, year, movie_length, " +
+                        "rating_imdb, rating_kinopoisk, type_id, votes_score, number_of_votes, rating, weighted_rating, updated_at) " +
+                        "values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                size.movies, i -> {
+                    long id = i + 1L;
+                    int k = rank.get(id);
+                    String en = title(WORDS_EN, random, id);
+                    double s = votesScore[k];
+                    double n = numberOfVotes[k];
+                    return new Object[]{id, title(WORDS_RU, random, id), en,
+                            "https://movies-cloud.com/posters/" + id + ".jpg",
+                            "https://movies-cloud.com/trailers/" + id + ".mp4",
+                            ("Описание фильма " + en + ". ").repeat(1 + random.nextInt(20)),
+                            "Слоган " + en, String.valueOf(2023 - (int) Math.min(73, Math.abs(random.nextGaussian() * 25))),
+                            70 + random.nextInt(110), 1 + random.nextInt(90) / 10.0, 1 + random.nextInt(90) / 10.0,
+                            catalogue.types.get(random.nextInt(catalogue.types.size())), s, n,
+                            n == 0 ? 0 : s / n, weightedRating.of(s, n), new Timestamp(now)};
+                });
+        jdbcTemplate.execute("alter sequence movie_id_seq restart with " + (size.movies + 100));
+        batch("insert into movie_genres (movie_id, genres_id) values (?, ?)",
+                links(size.movies, 3, genres, catalogue.genres, random));
+        batch("insert into movie_countries (movie_id, countries_id) values (?, ?)",
+                links(size.movies, 2, countries, catalogue.countries, random));
+        batch("insert into vote (movie_id, user_id, score, created_at) values (?, ?, ?, ?)", votes);
+
+        batch("insert into person (name_ru, name_en, poster_url, birthday, birth_place_id, updated_at) " +
+                        "values (?, ?, ?, ?, ?, ?)",
+                size.persons, i -> new Object[]{"Персона " + i, "Person " + i,
+                        "https://movies-cloud.com/staff/" + (i + 1) + ".jpg", timestamp(random),
+                        catalogue.countries.get(countries.next(random)), new Timestamp(now)});
+        List<Long> personIds = jdbcTemplate.queryForList("select id from person order by id", Long.class);
+        catalogue.personsByPopularity = shuffled(personIds, random);
+        List<Object[]> cast = new ArrayList<>();
+        for (Long person : personIds) {
+            Set<Long> movies = new HashSet<>();
+            int count = Math.min(1 + random.nextInt(8), size.movies);
+            while (movies.size() < count) movies.add(catalogue.moviesByPopularity[popularity.next(random)]);
+            for (Long movie : movies) cast.add(new Object[]{person, movie});
+        }
+        batch("insert into person_movies (person_id, movies_id) values (?, ?)", cast);
+
+        batch("insert into review (title, description, created_at, movie_id, author_id, updated_at) values (?, ?, ?, ?, ?, ?)",
+                size.reviews, i -> new Object[]{"Рецензия " + i, ("Текст рецензии " + i + ". ").repeat(1 + random.nextInt(40)),
+                        timestamp(random), catalogue.moviesByPopularity[popularity.next(random)],
+                        userIds.get(random.nextInt(size.users)), new Timestamp(now)});
+
+        refresh();
+        log.info("Catalogue generated: {} movies, {} persons, {} users, {} votes, {} reviews in {} ms",
+                size.movies, size.persons, users, votes.size(), size.reviews, System.currentTimeMillis() - start);
+        return catalogue;
+    }
+
+    private void refresh() {
+        Object types = AopTestUtils.getUltimateTargetObject(context.getBean(ITypeServices.class));
+        ReflectionTestUtils.invokeMethod(types, "loadCache");
+        context.getBean(MovieTitleIndex.class).rebuild();
+        context.getBean(MovieLeaderboards.class).rebuild();
+        context.getBeanProvider(MovieCatalogue.class).ifAvailable(MovieCatalogue::rebuild);
+    }
+
+    private void referenceData(Catalogue catalogue) {
+        String[] genres = {"драма", "комедия", "боевик", "триллер", "мелодрама", "фантастика", "криминал", "приключения",
+                "детектив", "ужасы", "мультфильм", "семейный", "фэнтези", "биография", "документальный", "военный",
+                "история", "мюзикл", "спорт", "вестерн"};
+        String[] countries = {"США", "Россия", "Франция", "Великобритания", "Германия", "Япония", "Италия", "Канада",
+                "Испания", "Южная Корея", "Индия", "Китай", "Швеция", "Австралия", "Бразилия", "Мексика", "Польша",
+                "Дания", "Норвегия", "Аргентина"};
+        String[] types = {"фильм", "сериал", "мультфильм", "мини-сериал"};
+        for (String name : genres) catalogue.genres.add(genreService.save(new Genre(null, name)).getId());
+        for (String name : countries) catalogue.countries.add(countryService.save(new Country(null, name)).getId());
+        for (String name : types) catalogue.types.add(typeRepository.save(new Type(null, name)).getId());
+    }
+
+    private static List<Object[]> links(int movies, int max, Zipf zipf, List<Long> ids, Random random) {
+        List<Object[]> rows = new ArrayList<>();
+        for (long movie = 1; movie <= movies; movie++) {
+            Set<Long> picked = new LinkedHashSet<>();
+            int count = 1 + random.nextInt(max);
+            while (picked.size() < count) picked.add(ids.get(zipf.next(random)));
+            for (Long id : picked) rows.add(new Object[]{movie, id});
+        }
+        return rows;
+    }
+
+    private void batch(String sql, int count, RowFactory rows) {
+        List<Object[]> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < count; i++) {
+            batch.add(rows.row(i));
+            if (batch.size() == BATCH) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) jdbcTemplate.batchUpdate(sql, batch);
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(rows.size(), from + BATCH)));
+        }
+    }
+
+    private static long[] shuffledIds(long first, int count, Random random) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) ids[i] = first + i;
+        return shuffle(ids, random);
+    }
+
+    private static long[] shuffled(List<Long> values, Random random) {
+        return shuffle(values.stream().mapToLong(Long::longValue).toArray(), random);
+    }
+
+    private static long[] shuffle(long[] ids, Random random) {
+        int count = ids.length;
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long swap = ids[i];
+            ids[i] = ids[j];
+            ids[j] = swap;
+        }
+        return ids;
+    }
+
+    private static String title(String[] words, Random random, long id) {
+        return words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)] + " " + id;
+    }
+
+    private static String email(int i, int voters) {
+        return i < voters ? "user" + i + "@movies-cloud.test" : "load" + (i - voters) + "@movies-cloud.test";
+    }
+
+    private static Timestamp timestamp(Random random) {
+        return new Timestamp(1_500_000_000_000L + (long) (random.nextDouble() * 200_000_000_000L));
+    }
+
+    private interface RowFactory {
+        Object[] row(int index);
+    }
+}
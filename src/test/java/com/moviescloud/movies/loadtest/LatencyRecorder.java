@@ -0,0 +1,72 @@
+package com.moviescloud.movies.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Latencies of one worker thread, kept per endpoint as raw nanoseconds. Workers never share a recorder;
+ * the recorders are merged once the run is over, so recording costs an array store.
+ */
+class LatencyRecorder {
+    private final Map<String, Series> series = new TreeMap<>();
+
+    void record(String endpoint, long nanos, boolean ok) {
+        Series values = series.computeIfAbsent(endpoint, e -> new Series());
+        values.add(nanos);
+        if (!ok) values.errors++;
+    }
+
+    void merge(LatencyRecorder other) {
+        other.series.forEach((endpoint, values) -> {
+            Series target = series.computeIfAbsent(endpoint, e -> new Series());
+            for (int i = 0; i < values.size; i++) target.add(values.nanos[i]);
+            target.errors += values.errors;
+        });
+    }
+
+    long errors() {
+        return series.values().stream().mapToLong(values -> values.errors).sum();
+    }
+
+    /**
+     * @return one line per endpoint with the request count, errors, throughput and latency percentiles in ms
+     */
+    String report(double seconds) {
+        StringBuilder report = new StringBuilder(String.format("%-26s %9s %7s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50", "p90", "p99", "max"));
+        Series total = new Series();
+        series.forEach((endpoint, values) -> {
+            line(report, endpoint, values, seconds);
+            for (int i = 0; i < values.size; i++) total.add(values.nanos[i]);
+            total.errors += values.errors;
+        });
+        line(report, "total", total, seconds);
+        return report.toString();
+    }
+
+    private static void line(StringBuilder report, String endpoint, Series values, double seconds) {
+        long[] sorted = Arrays.copyOf(values.nanos, values.size);
+        Arrays.sort(sorted);
+        report.append(String.format("%-26s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f%n", endpoint, values.size, values.errors,
+                values.size / seconds, millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99),
+                millis(sorted, 1.0)));
+    }
+
+    private static double millis(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private static final class Series {
+        private long[] nanos = new long[1024];
+        private int size;
+        private long errors;
+
+        void add(long value) {
+            if (size == nanos.length) nanos = Arrays.copyOf(nanos, size * 2);
+            nanos[size++] = value;
+        }
+    }
+}
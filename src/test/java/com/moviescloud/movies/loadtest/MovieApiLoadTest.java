@@ -0,0 +1,244 @@
+package com.moviescloud.movies.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Mixed read/write workload against the running application, with a generated catalogue in the database.
+ * The database is the in-memory H2 of the test profile in PostgreSQL mode; point {@code spring.datasource.*}
+ * at a PostgreSQL server to measure against the real thing. Sizes and durations are set in
+ * {@code application-load-test.yml} and can be overridden with system properties, for example
+ * {@code mvn -P load-test test -Dloadtest.catalogue.movies=100000 -Dloadtest.workload.threads=16}.
+ * <p>
+ * Each worker thread signs in as its own user and sends requests back to back; movies and staff are picked
+ * by popularity. Latency per endpoint is written to the log and to {@code target/load-test-report.txt}.
+ */
+@Slf4j
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles({"test", "load-test"})
+class MovieApiLoadTest {
+    private static final String JSON = "application/json";
+    private static final String[] ORDERS = {"id", "year", "weightedRating", "nameEn"};
+
+    @LocalServerPort
+    int port;
+
+    @Autowired
+    ApplicationContext context;
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${loadtest.seed}")
+    long seed;
+    @Value("${loadtest.catalogue.movies}")
+    int movies;
+    @Value("${loadtest.catalogue.persons}")
+    int persons;
+    @Value("${loadtest.catalogue.users}")
+    int users;
+    @Value("${loadtest.catalogue.reviews}")
+    int reviews;
+    @Value("${loadtest.catalogue.votes-per-user}")
+    int votesPerUser;
+    @Value("${loadtest.catalogue.skew}")
+    double skew;
+    @Value("${loadtest.workload.threads}")
+    int threads;
+    @Value("${loadtest.workload.warmup}")
+    Duration warmup;
+    @Value("${loadtest.workload.duration}")
+    Duration duration;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void mixedWorkload() throws Exception {
+        CatalogueGenerator.Catalogue catalogue = generate();
+        List<Worker> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            workers.add(new Worker(catalogue, signIn(catalogue.getLoadUsers().get(i)), new Random(seed + i)));
+        }
+
+        log.info("Warming up for {} with {} threads", warmup, threads);
+        run(workers, warmup);
+        log.info("Measuring for {} with {} threads", duration, threads);
+        LatencyRecorder result = run(workers, duration);
+
+        String report = result.report(duration.toMillis() / 1000.0);
+        log.info("Load test: {} movies, {} persons, {} threads, {}\n{}", movies, persons, threads, duration, report);
+        Files.createDirectories(Path.of("target"));
+        Files.writeString(Path.of("target", "load-test-report.txt"), report);
+        assertEquals(0, result.errors(), report);
+    }
+
+    private CatalogueGenerator.Catalogue generate() {
+        return new CatalogueGenerator(context).generate(CatalogueGenerator.Size.builder()
+                .movies(movies)
+                .persons(persons)
+                .users(users)
+                .reviews(reviews)
+                .votesPerUser(votesPerUser)
+                .loadUsers(threads)
+                .skew(skew)
+                .seed(seed)
+                .build());
+    }
+
+    private String signIn(String email) throws IOException, InterruptedException {
+        String body = objectMapper.writeValueAsString(Map.of("email", email, "password", CatalogueGenerator.PASSWORD));
+        HttpResponse<String> response = client.send(request("/api/v1/auth/signin")
+                .header("Content-Type", JSON)
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), response.body());
+        return objectMapper.readTree(response.body()).get("accessToken").asText();
+    }
+
+    private LatencyRecorder run(List<Worker> workers, Duration length) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(workers.size());
+        try {
+            long deadline = System.nanoTime() + length.toNanos();
+            List<Future<LatencyRecorder>> results = new ArrayList<>();
+            for (Worker worker : workers) results.add(executor.submit(() -> worker.run(deadline)));
+            LatencyRecorder total = new LatencyRecorder();
+            for (Future<LatencyRecorder> result : results) total.merge(result.get());
+            return total;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path)).timeout(Duration.ofSeconds(30));
+    }
+
+    /**
+     * One virtual user. Operations are drawn by weight; the same seed gives the same sequence of requests.
+     * A worker remembers its votes across runs, so it never votes for a movie twice.
+     */
+    private class Worker {
+        private final CatalogueGenerator.Catalogue catalogue;
+        private final String token;
+        private final Random random;
+        private final Zipf moviePopularity;
+        private final Zipf personPopularity;
+        private final Zipf pages = new Zipf(20, 1.2);
+        private final Set<Long> voted = new HashSet<>();
+        private LatencyRecorder recorder;
+
+        Worker(CatalogueGenerator.Catalogue catalogue, String token, Random random) {
+            this.catalogue = catalogue;
+            this.token = token;
+            this.random = random;
+            this.moviePopularity = new Zipf(catalogue.getMoviesByPopularity().length, skew);
+            this.personPopularity = new Zipf(catalogue.getPersonsByPopularity().length, skew);
+        }
+
+        LatencyRecorder run(long deadline) throws IOException, InterruptedException {
+            recorder = new LatencyRecorder();
+            while (System.nanoTime() < deadline) {
+                int operation = random.nextInt(100);
+                if (operation < 25) {
+                    send("GET /movies", get("/api/v1/movies?size=20&" + listing()));
+                } else if (operation < 30) {
+                    send("GET /movies?keyword", get("/api/v1/movies?size=20&keyword="
+                            + catalogue.getKeywords()[random.nextInt(catalogue.getKeywords().length)]));
+                } else if (operation < 55) {
+                    send("GET /movies/{id}", get("/api/v1/movies/" + movie()));
+                } else if (operation < 67) {
+                    send("GET /movies/{id}/reviews", get("/api/v1/movies/" + movie() + "/reviews?size=20"));
+                } else if (operation < 71) {
+                    String review = objectMapper.writeValueAsString(Map.of("title", "Рецензия под нагрузкой",
+                            "description", "Текст рецензии под нагрузкой. ".repeat(1 + random.nextInt(20))));
+                    send("POST /movies/{id}/reviews", authorized("/api/v1/movies/" + movie() + "/reviews")
+                            .header("Content-Type", JSON)
+                            .POST(HttpRequest.BodyPublishers.ofString(review, StandardCharsets.UTF_8)).build());
+                } else if (operation < 79) {
+                    vote();
+                } else if (operation < 85) {
+                    send("GET /staff", get("/api/v1/staff?size=20&page=" + pages.next(random)));
+                } else if (operation < 95) {
+                    send("GET /staff/{id}", get("/api/v1/staff/" + person()));
+                } else {
+                    send("GET /staff/{id}/movies", get("/api/v1/staff/" + person() + "/movies"));
+                }
+            }
+            return recorder;
+        }
+
+        private String listing() {
+            String page = "page=" + pages.next(random) + "&order=" + ORDERS[random.nextInt(ORDERS.length)];
+            switch (random.nextInt(4)) {
+                case 0:
+                    return page + "&genres=" + pick(catalogue.getGenres());
+                case 1:
+                    return page + "&countries=" + pick(catalogue.getCountries()) + "&type=" + pick(catalogue.getTypes());
+                case 2:
+                    return page + "&years=" + (2023 - random.nextInt(30));
+                default:
+                    return page;
+            }
+        }
+
+        private void vote() throws IOException, InterruptedException {
+            long movie = movie();
+            for (int attempt = 0; attempt < 10 && voted.contains(movie); attempt++) movie = movie();
+            if (!voted.add(movie)) return;
+            send("POST /movies/{id}/votes", authorized("/api/v1/movies/" + movie + "/votes?score=" + (1 + random.nextInt(10)))
+                    .POST(HttpRequest.BodyPublishers.noBody()).build());
+        }
+
+        private void send(String endpoint, HttpRequest request) throws IOException, InterruptedException {
+            long start = System.nanoTime();
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            long elapsed = System.nanoTime() - start;
+            boolean ok = response.statusCode() / 100 == 2;
+            if (!ok) log.warn("{} {} answered {}", endpoint, request.uri(), response.statusCode());
+            recorder.record(endpoint, elapsed, ok);
+        }
+
+        private HttpRequest get(String path) {
+            return request(path).GET().build();
+        }
+
+        private HttpRequest.Builder authorized(String path) {
+            return request(path).header("Authorization", "Bearer " + token);
+        }
+
+        private long movie() {
+            return catalogue.getMoviesByPopularity()[moviePopularity.next(random)];
+        }
+
+        private long person() {
+            return catalogue.getPersonsByPopularity()[personPopularity.next(random)];
+        }
+
+        private long pick(List<Long> ids) {
+            return ids.get(random.nextInt(ids.size()));
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.moviescloud.movies.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Zipf distribution over ranks {@code 0..n-1}: rank k is drawn with probability proportional to
+ * {@code 1 / (k + 1)^skew}, so a few ranks get most of the draws, like popular movies do.
+ */
+class Zipf {
+    private final double[] cumulative;
+
+    Zipf(int n, double skew) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1 / Math.pow(k + 1, skew);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    int next(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(index < 0 ? -index - 1 : index, cumulative.length - 1);
+    }
+
+    int size() {
+        return cumulative.length;
+    }
+}
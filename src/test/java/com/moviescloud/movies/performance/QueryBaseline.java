@@ -0,0 +1,109 @@
+package com.moviescloud.movies.performance;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Checked-in expectations of {@link QueryRegressionTests}: statements per request ({@code statements.*}) and the
+ * tables a repository query is allowed to scan in full ({@code plan.*}). A measurement above the baseline fails;
+ * one below it is only reported, so the baseline can be lowered on purpose.
+ * <p>
+ * Run with {@code -Dquery-baseline.update=true} to write the measured values to the source file instead.
+ */
+@Slf4j
+class QueryBaseline {
+    private static final String RESOURCE = "/performance/query-baseline.properties";
+    private static final Path SOURCE = Path.of("src/test/resources" + RESOURCE);
+    private static final String HEADER = "# Checked by QueryRegressionTests. statements.<request> is the number of SQL statements one request\n" +
+            "# executes, plan.<query> the tables the query reads with a full table scan.\n" +
+            "# Regenerate with: mvn test -Dtest=QueryRegressionTests -Dquery-baseline.update=true\n";
+
+    private final Properties expected = new Properties();
+    private final Map<String, String> measured = new TreeMap<>();
+    private final List<String> regressions = new ArrayList<>();
+    private final List<String> improvements = new ArrayList<>();
+
+    QueryBaseline() {
+        try (InputStream in = QueryBaseline.class.getResourceAsStream(RESOURCE)) {
+            if (in != null) expected.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void statements(String request, int count) {
+        String key = "statements." + request;
+        measured.put(key, String.valueOf(count));
+        String baseline = expected.getProperty(key);
+        if (baseline == null) {
+            regressions.add(key + ": " + count + " statements, no baseline");
+        } else if (count > Integer.parseInt(baseline.trim())) {
+            regressions.add(key + ": " + count + " statements, baseline " + baseline.trim());
+        } else if (count < Integer.parseInt(baseline.trim())) {
+            improvements.add(key + ": " + count + " statements, baseline " + baseline.trim());
+        }
+    }
+
+    void plan(String query, Set<String> scanned) {
+        String key = "plan." + query;
+        measured.put(key, String.join(",", new TreeSet<>(scanned)));
+        String baseline = expected.getProperty(key);
+        if (baseline == null) {
+            regressions.add(key + ": scans " + scanned + ", no baseline");
+            return;
+        }
+        Set<String> allowed = Arrays.stream(baseline.split(",")).map(String::trim).filter(s -> !s.isEmpty())
+                .collect(Collectors.toSet());
+        Set<String> added = new TreeSet<>(scanned);
+        added.removeAll(allowed);
+        if (!added.isEmpty()) {
+            regressions.add(key + ": new full scan of " + added);
+        } else if (!scanned.containsAll(allowed)) {
+            improvements.add(key + ": no longer scans " + allowed.stream().filter(t -> !scanned.contains(t)).collect(Collectors.toList()));
+        }
+    }
+
+    void verify() {
+        if (Boolean.getBoolean("query-baseline.update")) {
+            write();
+            return;
+        }
+        improvements.forEach(improvement -> log.warn("Better than the query baseline, lower it: {}", improvement));
+        if (!regressions.isEmpty()) {
+            fail("Worse than " + SOURCE + ":\n" + String.join("\n", regressions));
+        }
+    }
+
+    /**
+     * Merges the measured values into the source file, which may already hold the other test's values.
+     */
+    private void write() {
+        try {
+            Properties current = new Properties();
+            if (Files.exists(SOURCE)) {
+                try (InputStream in = Files.newInputStream(SOURCE)) {
+                    current.load(in);
+                }
+            }
+            Map<String, String> values = new TreeMap<>();
+            current.stringPropertyNames().forEach(key -> values.put(key, current.getProperty(key)));
+            values.putAll(measured);
+            StringBuilder file = new StringBuilder(HEADER);
+            values.forEach((key, value) -> file.append(key).append('=').append(value).append('\n'));
+            Files.createDirectories(SOURCE.getParent());
+            Files.writeString(SOURCE, file, StandardCharsets.ISO_8859_1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
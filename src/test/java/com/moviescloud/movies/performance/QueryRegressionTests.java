@@ -0,0 +1,245 @@
+package com.moviescloud.movies.performance;
+
+import com.moviescloud.movies.dto.MovieFilter;
+import com.moviescloud.movies.entities.User;
+import com.moviescloud.movies.loadtest.CatalogueGenerator;
+import com.moviescloud.movies.repositories.MovieRepository;
+import com.moviescloud.movies.repositories.PersonRepository;
+import com.moviescloud.movies.repositories.UserRepository;
+import com.moviescloud.movies.repositories.specifications.MovieSpecifications;
+import com.moviescloud.movies.services.impl.jwt.JwtTokenService;
+import com.moviescloud.movies.services.impl.rating.WeightedRating;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.IntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Guards against requests that suddenly need more SQL, the usual way a change here turns slow: a lazy collection
+ * touched during serialization, an EAGER association, a cascade. Every request in {@link #requests()} is sent
+ * once to warm caches, then once more while the statements are counted. Every repository query in
+ * {@link #queries()} is run under {@code EXPLAIN} to find the tables it scans in full.
+ * Both are compared with {@code performance/query-baseline.properties}, see {@link QueryBaseline}.
+ * <p>
+ * The catalogue is generated into a database of its own, so the data of other tests does not move the numbers.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:query-regression;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;" +
+        "DEFAULT_NULL_ORDERING=HIGH;NON_KEYWORDS=YEAR,VALUE;DB_CLOSE_ON_EXIT=FALSE")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(QueryRegressionTests.Recording.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryRegressionTests {
+    private static final Pattern EXPLAINABLE = Pattern.compile("\\s*(select|with|update|delete|insert)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern TABLE_SCAN = Pattern.compile("([\\w\"]+)\\.tableScan", Pattern.CASE_INSENSITIVE);
+
+    @TestConfiguration
+    static class Recording {
+        @Bean
+        static BeanPostProcessor statementRecording() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource && !(bean instanceof StatementRecorder)
+                            ? new StatementRecorder((DataSource) bean) : bean;
+                }
+            };
+        }
+    }
+
+    @Autowired
+    ApplicationContext context;
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    MovieRepository movieRepository;
+    @Autowired
+    PersonRepository personRepository;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    JwtTokenService jwtTokenService;
+    @Autowired
+    WeightedRating weightedRating;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    private StatementRecorder recorder;
+    private CatalogueGenerator.Catalogue catalogue;
+    private User user;
+    private String token;
+
+    @BeforeAll
+    void seed() {
+        recorder = (StatementRecorder) dataSource;
+        catalogue = new CatalogueGenerator(context).generate(CatalogueGenerator.Size.builder()
+                .movies(2000)
+                .persons(300)
+                .users(200)
+                .reviews(2000)
+                .votesPerUser(10)
+                .loadUsers(1)
+                .skew(1.1)
+                .seed(42)
+                .build());
+        user = userRepository.findByEmail(catalogue.getLoadUsers().get(0)).orElseThrow();
+        token = "Bearer " + jwtTokenService.generateToken(user);
+    }
+
+    @Test
+    void requestsDoNotExecuteMoreStatementsThanTheBaseline() {
+        QueryBaseline baseline = new QueryBaseline();
+        requests().forEach((name, request) -> {
+            perform(request.apply(0));
+            List<StatementRecorder.Executed> executed = recorder.run(() -> perform(request.apply(1)));
+            baseline.statements(name, executed.size());
+        });
+        baseline.verify();
+    }
+
+    @Test
+    void repositoryQueriesDoNotScanMoreTablesThanTheBaseline() {
+        QueryBaseline baseline = new QueryBaseline();
+        queries().forEach((name, query) -> {
+            List<StatementRecorder.Executed> executed = recorder.run(query);
+            assertTrue(!executed.isEmpty(), name + " executed no statement");
+            baseline.plan(name, scannedTables(executed));
+        });
+        baseline.verify();
+    }
+
+    /**
+     * Requests by baseline name; the argument is the attempt, 0 for the warm-up and 1 for the measured one,
+     * so writes can target a different row each time.
+     */
+    private Map<String, IntFunction<MockHttpServletRequestBuilder>> requests() {
+        long movie = movie(0);
+        long person = catalogue.getPersonsByPopularity()[0];
+        long genre = catalogue.getGenres().get(0);
+        Map<String, IntFunction<MockHttpServletRequestBuilder>> requests = new LinkedHashMap<>();
+        requests.put("movies.page", attempt -> get("/api/v1/movies").param("page", "0").param("size", "20"));
+        requests.put("movies.page.filtered", attempt -> get("/api/v1/movies").param("page", "0").param("size", "20")
+                .param("genres", String.valueOf(genre)).param("order", "weightedRating"));
+        requests.put("movies.page.cursor", attempt -> get("/api/v1/movies").param("size", "20").param("after", ""));
+        requests.put("movies.page.keyword", attempt -> get("/api/v1/movies").param("size", "20")
+                .param("keyword", catalogue.getKeywords()[0]));
+        requests.put("movies.facets", attempt -> get("/api/v1/movies/facets").param("genres", String.valueOf(genre)));
+        requests.put("movies.top-rated", attempt -> get("/api/v1/movies/top-rated").param("size", "20"));
+        requests.put("movies.top", attempt -> get("/api/v1/movies/top").param("genre", String.valueOf(genre)));
+        requests.put("movies.get", attempt -> get("/api/v1/movies/{id}", movie));
+        requests.put("movies.reviews", attempt -> get("/api/v1/movies/{id}/reviews", movie).param("size", "20"));
+        requests.put("movies.reviews.add", attempt -> post("/api/v1/movies/{id}/reviews", movie(attempt))
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\":\"Рецензия\",\"description\":\"Текст рецензии\"}"));
+        requests.put("movies.votes", attempt -> get("/api/v1/movies/{id}/votes", movie).param("size", "20"));
+        requests.put("movies.votes.cursor", attempt -> get("/api/v1/movies/{id}/votes", movie).param("size", "20").param("after", ""));
+        requests.put("movies.votes.add", attempt -> post("/api/v1/movies/{id}/votes", movie(10 + attempt))
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .param("score", "7"));
+        requests.put("staff.page", attempt -> get("/api/v1/staff").param("page", "0").param("size", "20"));
+        requests.put("staff.get", attempt -> get("/api/v1/staff/{id}", person));
+        requests.put("staff.movies", attempt -> get("/api/v1/staff/{id}/movies", person));
+        requests.put("genres.page", attempt -> get("/api/v1/genres"));
+        requests.put("changes.feed", attempt -> get("/api/v1/changes").param("since", "0").param("limit", "100"));
+        requests.put("auth.me", attempt -> get("/api/v1/auth/me").header(HttpHeaders.AUTHORIZATION, token));
+        return requests;
+    }
+
+    /**
+     * Repository queries by baseline name. Writes are rolled back.
+     */
+    private Map<String, Runnable> queries() {
+        long movie = movie(0);
+        List<Long> page = LongStream.range(0, 20).mapToObj(this::movie).collect(Collectors.toList());
+        MovieFilter filter = MovieFilter.builder().genres(List.of(catalogue.getGenres().get(0))).build();
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("MovieRepository.findById", () -> movieRepository.findById(movie));
+        queries.put("MovieRepository.findAll(pageable)", () -> movieRepository.findAll(PageRequest.of(1, 20, Sort.by("id"))));
+        queries.put("MovieRepository.findAll(specification,pageable)", () -> movieRepository.findAll(
+                MovieSpecifications.byFilter(filter), PageRequest.of(0, 20, Sort.by("weightedRating"))));
+        queries.put("MovieRepository.findAllByIdIn", () -> movieRepository.findAllByIdIn(page));
+        queries.put("MovieRepository.fetchGenres", () -> movieRepository.fetchGenres(page));
+        queries.put("MovieRepository.fetchCountries", () -> movieRepository.fetchCountries(page));
+        queries.put("MovieRepository.findAllTitles", () -> movieRepository.findAllTitles());
+        queries.put("MovieRepository.addVote", () -> transactionTemplate.executeWithoutResult(status -> {
+            movieRepository.addVote(movie, 7, weightedRating.getMinVotes(), weightedRating.getPrior());
+            status.setRollbackOnly();
+        }));
+        queries.put("MovieRepository.count", () -> movieRepository.count());
+        queries.put("PersonRepository.fetchProfessions", () -> personRepository.fetchProfessions(
+                Arrays.stream(catalogue.getPersonsByPopularity()).limit(20).boxed().collect(Collectors.toList())));
+        queries.put("UserRepository.findById", () -> userRepository.findById(user.getId()));
+        queries.put("UserRepository.findByEmail", () -> userRepository.findByEmail(user.getEmail()));
+        queries.put("UserRepository.existsUserByEmail", () -> userRepository.existsUserByEmail(user.getEmail()));
+        return queries;
+    }
+
+    private long movie(long rank) {
+        return catalogue.getMoviesByPopularity()[(int) rank];
+    }
+
+    private void perform(MockHttpServletRequestBuilder request) {
+        try {
+            MvcResult result = mockMvc.perform(request).andReturn();
+            int status = result.getResponse().getStatus();
+            assertTrue(status >= 200 && status < 300, result.getRequest().getRequestURI() + " answered " + status
+                    + ": " + result.getResponse().getContentAsString());
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Set<String> scannedTables(List<StatementRecorder.Executed> executed) {
+        Set<String> tables = new TreeSet<>();
+        try (Connection connection = recorder.getTargetDataSource().getConnection()) {
+            for (StatementRecorder.Executed statement : executed) {
+                if (!EXPLAINABLE.matcher(statement.getSql()).lookingAt()) continue;
+                try (PreparedStatement explain = statement.prepare(connection, "EXPLAIN ");
+                     ResultSet plan = explain.executeQuery()) {
+                    while (plan.next()) {
+                        Matcher matcher = TABLE_SCAN.matcher(plan.getString(1));
+                        while (matcher.find()) tables.add(matcher.group(1).replace("\"", "").toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return tables;
+    }
+}
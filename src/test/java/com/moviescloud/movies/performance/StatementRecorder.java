@@ -0,0 +1,138 @@
+package com.moviescloud.movies.performance;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Data source that records every statement executed through it, together with the parameters it was run with,
+ * so a test can count the round trips of one request and replay a query under {@code EXPLAIN}.
+ * Counting covers Hibernate, Spring Data and {@code JdbcTemplate} alike. A JDBC batch counts as one statement.
+ */
+public class StatementRecorder extends DelegatingDataSource {
+    private final List<Executed> executed = Collections.synchronizedList(new ArrayList<>());
+
+    public StatementRecorder(DataSource target) {
+        super(target);
+    }
+
+    /**
+     * One execution: the SQL and the parameter setters called before it, in order.
+     */
+    public static final class Executed {
+        private final String sql;
+        private final List<Object[]> setters;
+
+        Executed(String sql, List<Object[]> setters) {
+            this.sql = sql;
+            this.setters = setters;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * Prepares {@code prefix + sql} on the given connection with the same parameters.
+         */
+        public PreparedStatement prepare(Connection connection, String prefix) throws SQLException {
+            PreparedStatement statement = connection.prepareStatement(prefix + sql);
+            try {
+                for (Object[] setter : setters) {
+                    ((Method) setter[0]).invoke(statement, (Object[]) setter[1]);
+                }
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                statement.close();
+                throw new SQLException("Could not replay parameters of " + sql, e);
+            }
+            return statement;
+        }
+    }
+
+    public List<Executed> run(Runnable action) {
+        reset();
+        action.run();
+        return executed();
+    }
+
+    public void reset() {
+        executed.clear();
+    }
+
+    public List<Executed> executed() {
+        synchronized (executed) {
+            return new ArrayList<>(executed);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connection(super.getConnection(username, password));
+    }
+
+    private Connection connection(Connection connection) {
+        return proxy(Connection.class, connection, (method, args) -> {
+            Object result = method.invoke(connection, args);
+            if (method.getName().equals("prepareStatement")) {
+                return statement((PreparedStatement) result, (String) args[0]);
+            }
+            if (result instanceof Statement && method.getName().equals("createStatement")) {
+                return statement((Statement) result, null);
+            }
+            return result;
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private Statement statement(Statement statement, String preparedSql) {
+        List<Object[]> setters = new ArrayList<>();
+        Class<Statement> type = preparedSql == null ? Statement.class : (Class<Statement>) (Class<?>) PreparedStatement.class;
+        return proxy(type, statement, (method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                setters.add(new Object[]{method, args.clone()});
+            } else if (name.equals("clearParameters")) {
+                setters.clear();
+            } else if (name.startsWith("execute")) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+                if (sql != null) executed.add(new Executed(sql, new ArrayList<>(setters)));
+            }
+            return method.invoke(statement, args);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, Handler handler) {
+        InvocationHandler invocation = (proxy, method, args) -> {
+            if (method.getName().equals("unwrap") || method.getName().equals("isWrapperFor")) {
+                return method.invoke(target, args);
+            }
+            try {
+                return handler.invoke(method, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocation);
+    }
+
+    private interface Handler {
+        Object invoke(Method method, Object[] args) throws Throwable;
+    }
+}
@@ -0,0 +1,81 @@
+package com.moviescloud.movies.repositories.keyset;
+
+import com.moviescloud.movies.entities.Review;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:keyset;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;" +
+        "DEFAULT_NULL_ORDERING=HIGH;NON_KEYWORDS=YEAR,VALUE;DB_CLOSE_ON_EXIT=FALSE")
+@ActiveProfiles("test")
+class KeysetRepositoryTests {
+    private static final Specification<Review> KEYSET_REVIEWS = (root, query, cb) -> cb.like(root.get("title"), "keyset %");
+
+    @Autowired
+    KeysetRepository keysetRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("insert into users (email, password, first_name, last_name) values ('keyset@example.com', 'x', 'Key', 'Set')");
+        Long author = jdbcTemplate.queryForObject("select id from users where email = 'keyset@example.com'", Long.class);
+        // Same microsecond, as every legacy review backfilled with one current_timestamp
+        for (int i = 1; i <= 3; i++) {
+            jdbcTemplate.update("insert into review (title, description, created_at, author_id) values (?, 'text', " +
+                    "timestamp '2023-03-01 10:00:00.123456', ?)", "keyset " + i, author);
+        }
+        jdbcTemplate.update("insert into review (title, description, created_at, author_id) values ('keyset 4', 'text', " +
+                "timestamp '2023-03-01 10:00:00.123', ?)", author);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from review where title like 'keyset %'");
+        jdbcTemplate.update("delete from users where email = 'keyset@example.com'");
+    }
+
+    @Test
+    void rowsSharingASubMillisecondTimestampAreAllPaged() {
+        List<Long> expected = jdbcTemplate.queryForList(
+                "select id from review where title like 'keyset %' order by created_at desc, id desc", Long.class);
+
+        assertEquals(4, expected.size());
+        assertEquals(expected, walk(Sort.Order.desc("createdAt")));
+    }
+
+    @Test
+    void ascendingOrderPagesThemToo() {
+        List<Long> expected = jdbcTemplate.queryForList(
+                "select id from review where title like 'keyset %' order by created_at, id", Long.class);
+
+        assertEquals(expected, walk(Sort.Order.asc("createdAt")));
+    }
+
+    private List<Long> walk(Sort.Order order) {
+        List<Long> ids = new ArrayList<>();
+        String after = null;
+        do {
+            String cursor = after;
+            KeysetPage<Review> page = transactionTemplate.execute(status ->
+                    keysetRepository.findAll(Review.class, KEYSET_REVIEWS, order, cursor, 1, null));
+            page.getItems().forEach(review -> ids.add(review.getId()));
+            after = page.getNextCursor();
+        } while (after != null && ids.size() < 10);
+        return ids;
+    }
+}
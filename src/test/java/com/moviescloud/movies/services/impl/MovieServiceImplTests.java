@@ -0,0 +1,110 @@
+package com.moviescloud.movies.services.impl;
+
+import com.moviescloud.movies.dto.MovieFilter;
+import com.moviescloud.movies.entities.Country;
+import com.moviescloud.movies.entities.Genre;
+import com.moviescloud.movies.entities.Movie;
+import com.moviescloud.movies.entities.Type;
+import com.moviescloud.movies.repositories.CountryRepository;
+import com.moviescloud.movies.repositories.GenreRepository;
+import com.moviescloud.movies.repositories.MovieRepository;
+import com.moviescloud.movies.repositories.TypeRepository;
+import com.moviescloud.movies.repositories.keyset.KeysetPage;
+import com.moviescloud.movies.services.IMovieService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class MovieServiceImplTests {
+    private static final int MOVIES = 60;
+
+    @Autowired
+    IMovieService movieService;
+    @Autowired
+    MovieRepository movieRepository;
+    @Autowired
+    GenreRepository genreRepository;
+    @Autowired
+    CountryRepository countryRepository;
+    @Autowired
+    TypeRepository typeRepository;
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @BeforeEach
+    void seed() {
+        if (movieRepository.count() >= MOVIES) return;
+
+        List<Genre> genres = new ArrayList<>();
+        List<Country> countries = new ArrayList<>();
+        List<Type> types = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            genres.add(genreRepository.save(new Genre(null, "genre " + i)));
+            countries.add(countryRepository.save(new Country(null, "country " + i)));
+            types.add(typeRepository.save(new Type(null, "type " + i)));
+        }
+        for (int i = 0; i < MOVIES; i++) {
+            movieRepository.save(new Movie()
+                    .setNameRu("Фильм " + i)
+                    .setNameEn("Movie " + i)
+                    .setGenres(new ArrayList<>(List.of(genres.get(i % 4), genres.get((i + 1) % 4))))
+                    .setCountries(new ArrayList<>(List.of(countries.get(i % 4))))
+                    .setType(types.get(i % 4)));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 50})
+    void offsetPageOfMoviesLoadsInConstantNumberOfStatements(int size) {
+        Statistics statistics = statistics();
+
+        Page<Movie> page = movieService.findAll(PageRequest.of(0, size, Sort.by("id")), MovieFilter.builder().build());
+        page.forEach(MovieServiceImplTests::serialize);
+
+        assertEquals(size, page.getNumberOfElements());
+        // page, count, genres, countries
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {5, 50})
+    void keysetPageOfMoviesLoadsInConstantNumberOfStatements(int size) {
+        Statistics statistics = statistics();
+
+        KeysetPage<Movie> page = movieService.findAll(MovieFilter.builder().build(), "id", "", size);
+        page.getItems().forEach(MovieServiceImplTests::serialize);
+
+        assertEquals(size, page.getItems().size());
+        // page, genres, countries
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    // Touches everything Jackson writes for a movie, outside of any session.
+    private static void serialize(Movie movie) {
+        movie.getGenres().forEach(Genre::getName);
+        movie.getCountries().forEach(Country::getName);
+        movie.getType().getName();
+    }
+}
@@ -0,0 +1,87 @@
+package com.moviescloud.movies.services.impl.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ExpiringCacheTests {
+    private final MutableClock clock = new MutableClock(1_000_000);
+
+    @Test
+    void entryExpiresAtItsExpiryTime() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(0, 10, clock);
+        cache.put("token", "subject", clock.millis() + 500);
+
+        clock.advance(499);
+        assertEquals("subject", cache.get("token"));
+        clock.advance(1);
+        assertNull(cache.get("token"));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+    }
+
+    @Test
+    void entryExpiresAfterTheTtl() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(300, 10, clock);
+        cache.put("email", "principal");
+
+        clock.advance(299);
+        assertEquals("principal", cache.get("email"));
+        clock.advance(1);
+        assertNull(cache.get("email"));
+    }
+
+    @Test
+    void fullCacheEvictsExpiredEntriesFirst() {
+        ExpiringCache<Integer, String> cache = new ExpiringCache<>(0, 4, clock);
+        cache.put(1, "expired", clock.millis() + 10);
+        cache.put(2, "oldest", clock.millis() + 100);
+        cache.put(3, "newer", clock.millis() + 200);
+        cache.put(4, "newest", clock.millis() + 300);
+        clock.advance(10);
+
+        cache.put(5, "added", clock.millis() + 400);
+
+        assertEquals(4, cache.size());
+        assertNull(cache.get(1));
+        assertEquals("oldest", cache.get(2));
+        assertEquals("added", cache.get(5));
+    }
+
+    @Test
+    void fullCacheEvictsTheOldestEntriesWhenNoneExpired() {
+        ExpiringCache<Integer, String> cache = new ExpiringCache<>(0, 8, clock);
+        for (int i = 0; i < 8; i++) {
+            cache.put(i, "value" + i, clock.millis() + 100 + i);
+        }
+
+        cache.put(8, "added", clock.millis() + 1000);
+
+        assertEquals(8, cache.size());
+        assertNull(cache.get(0));
+        assertEquals("value1", cache.get(1));
+        assertEquals("added", cache.get(8));
+    }
+
+    @Test
+    void replacingAKeyInAFullCacheEvictsNothing() {
+        ExpiringCache<Integer, String> cache = new ExpiringCache<>(0, 2, clock);
+        cache.put(1, "one", clock.millis() + 100);
+        cache.put(2, "two", clock.millis() + 200);
+
+        cache.put(1, "uno", clock.millis() + 300);
+
+        assertEquals("uno", cache.get(1));
+        assertEquals("two", cache.get(2));
+    }
+
+    @Test
+    void zeroSizeCachesNothing() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(300, 0, clock);
+        cache.put("email", "principal");
+
+        assertNull(cache.get("email"));
+    }
+}
@@ -0,0 +1,41 @@
+package com.moviescloud.movies.services.impl.cache;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Clock that only moves when a test advances it.
+ */
+public class MutableClock extends Clock {
+    private long millis;
+
+    public MutableClock(long millis) {
+        this.millis = millis;
+    }
+
+    public void advance(long millis) {
+        this.millis += millis;
+    }
+
+    @Override
+    public long millis() {
+        return millis;
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis);
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return this;
+    }
+}
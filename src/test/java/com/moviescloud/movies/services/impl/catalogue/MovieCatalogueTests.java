@@ -0,0 +1,138 @@
+package com.moviescloud.movies.services.impl.catalogue;
+
+import com.moviescloud.movies.dto.MovieFilter;
+import com.moviescloud.movies.entities.Movie;
+import com.moviescloud.movies.services.events.MovieDeletedEvent;
+import com.moviescloud.movies.services.events.MovieSavedEvent;
+import com.moviescloud.movies.services.events.MovieVotedEvent;
+import com.moviescloud.movies.services.impl.search.MovieTitleIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class MovieCatalogueTests {
+    private final NamedParameterJdbcTemplate jdbcTemplate = spy(new NamedParameterJdbcTemplate(
+            new DriverManagerDataSource("jdbc:h2:mem:catalogue;NON_KEYWORDS=YEAR;DB_CLOSE_DELAY=-1", "sa", "")));
+    private final MovieCatalogue catalogue = new MovieCatalogue(jdbcTemplate, mock(MovieTitleIndex.class));
+
+    @BeforeEach
+    void setUp() {
+        sql("create table movie (id bigint primary key, type_id bigint, year varchar(4), " +
+                "rating double precision, weighted_rating double precision, number_of_votes double precision)");
+        sql("create table movie_genres (movie_id bigint, genres_id bigint)");
+        sql("create table movie_countries (movie_id bigint, countries_id bigint)");
+        sql("insert into movie values (1, null, '1979', 8.1, 7.9, 10), (2, null, '1972', 8.0, 7.8, 10)");
+        sql("insert into movie_genres values (1, 10), (2, 20)");
+    }
+
+    @AfterEach
+    void tearDown() {
+        sql("drop all objects");
+    }
+
+    @Test
+    void moviesSavedWhileLoadingAreReadAgain() {
+        doAnswer(invocation -> {
+            invocation.callRealMethod();
+            // Committed after the load read the movies
+            sql("update movie_genres set genres_id = 20 where movie_id = 1");
+            catalogue.onSaved(new MovieSavedEvent(List.of(movie(1))));
+            return null;
+        }).doCallRealMethod().when(jdbcTemplate).query(startsWith("select m.id"), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+
+        catalogue.rebuild();
+
+        assertEquals(List.of(), ids(genre(10)));
+        assertEquals(List.of(1L, 2L), ids(genre(20)));
+    }
+
+    @Test
+    void editedMovieKeepsItsOrdinal() {
+        catalogue.rebuild();
+        sql("update movie_genres set genres_id = 20 where movie_id = 1");
+        sql("update movie set year = '1980' where id = 1");
+
+        catalogue.onSaved(new MovieSavedEvent(List.of(movie(1))));
+
+        assertEquals(List.of(1L, 2L), ids(genre(20)));
+        assertEquals(List.of(1L), ids(MovieFilter.builder().years(List.of("1980")).build()));
+        assertEquals(List.of(), ids(MovieFilter.builder().years(List.of("1979")).build()));
+        assertEquals(2, ReflectionTestUtils.getField(catalogue, "size"));
+    }
+
+    @Test
+    void movieDeletedBeforeItsSaveIsReadIsRemoved() {
+        catalogue.rebuild();
+        sql("delete from movie where id = 2");
+
+        catalogue.onSaved(new MovieSavedEvent(List.of(movie(2))));
+
+        assertEquals(List.of(1L), ids(MovieFilter.builder().build()));
+    }
+
+    @Test
+    void movieDeletedWhileItWasReadIsNotPutBack() {
+        catalogue.rebuild();
+        doAnswer(invocation -> {
+            invocation.callRealMethod();
+            // Committed after the save listener read the movie
+            sql("delete from movie_genres where movie_id = 2");
+            sql("delete from movie where id = 2");
+            catalogue.onDeleted(new MovieDeletedEvent(2));
+            return null;
+        }).doCallRealMethod().when(jdbcTemplate).query(startsWith("select movie_id, countries_id"), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+
+        catalogue.onSaved(new MovieSavedEvent(List.of(movie(2))));
+
+        Page<Long> all = catalogue.find(MovieFilter.builder().build(), PageRequest.of(0, 10));
+        assertEquals(List.of(1L), all.getContent());
+        assertEquals(1, all.getTotalElements());
+    }
+
+    @Test
+    void ratingReadBeforeTheLastVoteIsIgnored() {
+        catalogue.rebuild();
+        sql("update movie set rating = 9.0, number_of_votes = 12 where id = 1");
+        catalogue.onVoted(new MovieVotedEvent(1));
+
+        // A read taken before the last vote, delivered after it
+        sql("update movie set rating = 7.0, number_of_votes = 11 where id = 1");
+        catalogue.onVoted(new MovieVotedEvent(1));
+
+        assertEquals(List.of(1L, 2L), catalogue.find(MovieFilter.builder().build(),
+                PageRequest.of(0, 10, Sort.by(Sort.Order.desc("rating")))).getContent());
+    }
+
+    private List<Long> ids(MovieFilter filter) {
+        return catalogue.find(filter, PageRequest.of(0, 10)).getContent();
+    }
+
+    private static MovieFilter genre(long genre) {
+        return MovieFilter.builder().genres(List.of(genre)).build();
+    }
+
+    private static Movie movie(long id) {
+        Movie movie = new Movie();
+        movie.setId(id);
+        return movie;
+    }
+
+    private void sql(String sql) {
+        jdbcTemplate.getJdbcTemplate().execute(sql);
+    }
+}
@@ -0,0 +1,64 @@
+package com.moviescloud.movies.services.impl.jwt;
+
+import com.moviescloud.movies.entities.User;
+import com.moviescloud.movies.services.impl.cache.MutableClock;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class JwtTokenServiceTests {
+    private static final long VALIDITY = 60_000;
+
+    private final MutableClock clock = new MutableClock(1_700_000_000_000L);
+    private final SimpleMeterRegistry metrics = new SimpleMeterRegistry();
+
+    @Test
+    void cachedTokenIsRejectedOnceExpired() {
+        JwtTokenService service = service(100);
+        String token = service.generateToken(user("viewer@example.com"));
+        assertEquals("viewer@example.com", service.validateTokenAndGetEmail(token));
+
+        clock.advance(VALIDITY - 1);
+        assertEquals("viewer@example.com", service.validateTokenAndGetEmail(token));
+        assertEquals(1, metrics.get("cache.gets").tags("cache", "jwt_tokens", "result", "hit").functionCounter().count());
+
+        // The verifier compares whole seconds, so it accepts the token until the second of exp is over
+        clock.advance(1_001);
+        assertNull(service.validateTokenAndGetEmail(token));
+    }
+
+    @Test
+    void tokensStillValidateWhenTheCacheIsFull() {
+        JwtTokenService service = service(1);
+        String first = service.generateToken(user("first@example.com"));
+        String second = service.generateToken(user("second@example.com"));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("first@example.com", service.validateTokenAndGetEmail(first));
+            assertEquals("second@example.com", service.validateTokenAndGetEmail(second));
+        }
+    }
+
+    @Test
+    void tokenSignedWithAnotherSecretIsRejected() {
+        String token = new JwtTokenService("another_secret", 100, new SimpleMeterRegistry(), clock)
+                .generateToken(user("viewer@example.com"));
+
+        assertNull(service(100).validateTokenAndGetEmail(token));
+    }
+
+    private JwtTokenService service(int tokenCacheSize) {
+        JwtTokenService service = new JwtTokenService("very_long_text", tokenCacheSize, metrics, clock);
+        ReflectionTestUtils.setField(service, "JWT_TOKEN_VALIDITY", VALIDITY);
+        return service;
+    }
+
+    private static User user(String email) {
+        return new User(email, "password", "Ivan", "Petrov", null, List.of());
+    }
+}
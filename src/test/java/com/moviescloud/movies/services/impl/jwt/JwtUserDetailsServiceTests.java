@@ -0,0 +1,71 @@
+package com.moviescloud.movies.services.impl.jwt;
+
+import com.moviescloud.movies.entities.Privilege;
+import com.moviescloud.movies.entities.User;
+import com.moviescloud.movies.repositories.UserRepository;
+import com.moviescloud.movies.services.events.UserChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class JwtUserDetailsServiceTests {
+    private static final String EMAIL = "editor@example.com";
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final JwtUserDetailsService service = new JwtUserDetailsService(userRepository, 300_000, 100, new SimpleMeterRegistry());
+
+    @Test
+    void revokedPrivilegeIsVisibleAfterTheChangeCommits() {
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user("CREATE_MOVIE")));
+        assertEquals(List.of("CREATE_MOVIE"), authorities(service.loadCachedUserByEmail(EMAIL)));
+
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user()));
+        service.onUserChanged(new UserChangedEvent(1));
+
+        assertEquals(List.of(), authorities(service.loadCachedUserByEmail(EMAIL)));
+    }
+
+    @Test
+    void principalReadBeforeTheChangeIsNotCached() {
+        when(userRepository.findByEmail(EMAIL)).thenAnswer(invocation -> {
+            // The revocation commits while this request still holds the old row
+            service.onUserChanged(new UserChangedEvent(1));
+            return Optional.of(user("CREATE_MOVIE"));
+        }).thenReturn(Optional.of(user()));
+
+        assertEquals(List.of("CREATE_MOVIE"), authorities(service.loadCachedUserByEmail(EMAIL)));
+        assertEquals(List.of(), authorities(service.loadCachedUserByEmail(EMAIL)));
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    void callersCannotChangeTheCachedPrincipal() {
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user("CREATE_MOVIE")));
+
+        ((User) service.loadCachedUserByEmail(EMAIL)).getPrivileges().clear();
+
+        assertEquals(List.of("CREATE_MOVIE"), authorities(service.loadCachedUserByEmail(EMAIL)));
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+    }
+
+    private static User user(String... privileges) {
+        List<Privilege> granted = new ArrayList<>();
+        for (String privilege : privileges) granted.add(new Privilege(privilege));
+        User user = new User(EMAIL, "password", "Ivan", "Petrov", null, granted);
+        user.setId(1);
+        return user;
+    }
+
+    private static List<String> authorities(UserDetails user) {
+        return user.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.toList());
+    }
+}
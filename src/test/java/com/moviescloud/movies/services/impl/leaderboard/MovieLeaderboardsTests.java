@@ -0,0 +1,175 @@
+package com.moviescloud.movies.services.impl.leaderboard;
+
+import com.moviescloud.movies.dto.LeaderboardEntry;
+import com.moviescloud.movies.entities.Movie;
+import com.moviescloud.movies.services.events.MovieDeletedEvent;
+import com.moviescloud.movies.services.events.MovieSavedEvent;
+import com.moviescloud.movies.services.events.MovieVotedEvent;
+import com.moviescloud.movies.services.impl.leaderboard.MovieLeaderboards.Dimension;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class MovieLeaderboardsTests {
+    private static final String REFILL = "= :board";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate = spy(new NamedParameterJdbcTemplate(
+            new DriverManagerDataSource("jdbc:h2:mem:leaderboards;NON_KEYWORDS=YEAR;DB_CLOSE_DELAY=-1", "sa", "")));
+    private final MovieLeaderboards leaderboards = new MovieLeaderboards(jdbcTemplate);
+
+    @BeforeEach
+    void setUp() {
+        // Lists of two movies, truncated at four
+        ReflectionTestUtils.setField(leaderboards, "size", 2);
+        sql("create table movie (id bigint primary key, name_ru varchar(255), name_en varchar(255), " +
+                "poster_url varchar(255), year varchar(4), rating double precision, weighted_rating double precision, " +
+                "number_of_votes double precision, type_id bigint)");
+        sql("create table movie_genres (movie_id bigint, genres_id bigint)");
+        sql("create table movie_countries (movie_id bigint, countries_id bigint)");
+        for (long id = 1; id <= 6; id++) {
+            sql("insert into movie values (" + id + ", null, null, null, '2000', 0, " + (10 - id) + ", 10, null)");
+            sql("insert into movie_genres values (" + id + ", 10)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        sql("drop all objects");
+    }
+
+    @Test
+    void truncatedListIsRefilledOnceBelowSize() {
+        leaderboards.rebuild();
+        assertEquals(List.of(1L, 2L), ids(top()));
+
+        delete(1);
+        delete(2);
+        assertEquals(List.of(3L, 4L), ids(top()));
+        verify(jdbcTemplate, never()).query(contains(REFILL), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+
+        delete(3);
+        assertEquals(List.of(4L, 5L), ids(top()));
+        verify(jdbcTemplate, times(1)).query(contains(REFILL), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void readersDoNotWaitForARefill() {
+        AtomicReference<List<LeaderboardEntry>> read = new AtomicReference<>();
+        doAnswer(invocation -> {
+            read.set(CompletableFuture.supplyAsync(this::top).get(1, TimeUnit.SECONDS));
+            return invocation.callRealMethod();
+        }).when(jdbcTemplate).query(contains(REFILL), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+        leaderboards.rebuild();
+
+        delete(1);
+        delete(2);
+        delete(3);
+
+        assertEquals(List.of(4L), ids(read.get()));
+        assertEquals(List.of(4L, 5L), ids(top()));
+    }
+
+    @Test
+    void movieSavedDuringRefillIsReadAgain() {
+        doAnswer(invocation -> {
+            invocation.callRealMethod();
+            // Committed after the refill read the list
+            sql("update movie_genres set genres_id = 20 where movie_id = 5");
+            leaderboards.onSaved(new MovieSavedEvent(List.of(movie(5))));
+            return null;
+        }).doCallRealMethod().when(jdbcTemplate).query(contains(REFILL), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+        leaderboards.rebuild();
+
+        delete(1);
+        delete(2);
+        delete(3);
+
+        assertEquals(List.of(4L, 6L), ids(top()));
+        assertEquals(List.of(5L), ids(leaderboards.top(Dimension.GENRE, 20, 10)));
+    }
+
+    @Test
+    void voteCommittedDuringRebuildIsReadAgain() {
+        doAnswer(invocation -> {
+            invocation.callRealMethod();
+            // Committed after the rebuild read the genre lists
+            sql("update movie set weighted_rating = 9.5, number_of_votes = 11 where id = 6");
+            leaderboards.onVoted(new MovieVotedEvent(6));
+            return null;
+        }).doCallRealMethod().when(jdbcTemplate).query(startsWith("select * from"), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+
+        leaderboards.rebuild();
+
+        assertEquals(List.of(6L, 1L), ids(top()));
+    }
+
+    @Test
+    void movieDeletedAfterItsVoteWasReadStaysRemoved() {
+        leaderboards.rebuild();
+        doAnswer(invocation -> {
+            invocation.callRealMethod();
+            // Committed after the vote listener read the movie and its lists
+            delete(1);
+            return null;
+        }).doCallRealMethod().when(jdbcTemplate).query(startsWith("select movie_id, countries_id"), any(SqlParameterSource.class), any(RowCallbackHandler.class));
+
+        leaderboards.onVoted(new MovieVotedEvent(1));
+
+        assertEquals(List.of(2L, 3L), ids(top()));
+    }
+
+    @Test
+    void staleVoteReadIsIgnored() {
+        leaderboards.rebuild();
+        sql("update movie set weighted_rating = 9.5, number_of_votes = 12 where id = 2");
+        leaderboards.onVoted(new MovieVotedEvent(2));
+
+        // A read taken before the last vote, delivered after it
+        sql("update movie set weighted_rating = 8.5, number_of_votes = 11 where id = 2");
+        leaderboards.onVoted(new MovieVotedEvent(2));
+
+        assertEquals(List.of(2L, 1L), ids(top()));
+        assertEquals(12, top().get(0).getNumberOfVotes());
+    }
+
+    private List<LeaderboardEntry> top() {
+        return leaderboards.top(Dimension.GENRE, 10, 10);
+    }
+
+    private void delete(long id) {
+        sql("delete from movie_genres where movie_id = " + id);
+        sql("delete from movie where id = " + id);
+        leaderboards.onDeleted(new MovieDeletedEvent(id));
+    }
+
+    private static Movie movie(long id) {
+        Movie movie = new Movie();
+        movie.setId(id);
+        return movie;
+    }
+
+    private static List<Long> ids(List<LeaderboardEntry> entries) {
+        return entries.stream().map(LeaderboardEntry::getId).collect(Collectors.toList());
+    }
+
+    private void sql(String sql) {
+        jdbcTemplate.getJdbcTemplate().execute(sql);
+    }
+}
@@ -0,0 +1,70 @@
+package com.moviescloud.movies.services.impl.search;
+
+import com.moviescloud.movies.repositories.MovieRepository;
+import com.moviescloud.movies.repositories.projections.MovieTitle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MovieTitleIndexTests {
+    private final MovieRepository movieRepository = mock(MovieRepository.class);
+    private final MovieTitleIndex index = new MovieTitleIndex(movieRepository);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(index, "maxMatches", 100);
+    }
+
+    @Test
+    void savesDuringRebuildAreNotLost() {
+        when(movieRepository.findAllTitles()).thenAnswer(invocation -> {
+            // Committed after the snapshot below was read
+            index.put(2, "Солярис", "Solaris");
+            index.remove(1);
+            return List.of(title(1, "Сталкер", "Stalker"));
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of(), index.search("сталкер"));
+        assertEquals(List.of(2L), index.search("солярис"));
+    }
+
+    @Test
+    void rebuildReplacesTheIndex() {
+        index.put(3, "Зеркало", "Mirror");
+        when(movieRepository.findAllTitles()).thenReturn(List.of(title(1, "Сталкер", "Stalker")));
+
+        index.rebuild();
+
+        assertEquals(List.of(), index.search("зеркало"));
+        assertEquals(List.of(1L), index.search("stalker"));
+        index.put(4, "Зеркало", "Mirror");
+        assertEquals(List.of(4L), index.search("зерк"));
+    }
+
+    private static MovieTitle title(long id, String nameRu, String nameEn) {
+        return new MovieTitle() {
+            @Override
+            public long getId() {
+                return id;
+            }
+
+            @Override
+            public String getNameRu() {
+                return nameRu;
+            }
+
+            @Override
+            public String getNameEn() {
+                return nameEn;
+            }
+        };
+    }
+}